@@ -0,0 +1,226 @@
+package com.templeosrs.api;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.templeosrs.util.TempleService;
+import com.templeosrs.util.api.RequestPriority;
+import com.templeosrs.util.api.RequestRateLimiter;
+import com.templeosrs.util.api.TempleExecutor;
+import com.templeosrs.util.api.TempleHttpClient;
+import com.templeosrs.util.collections.CollectionLogRequestManager;
+import com.templeosrs.util.collections.autosync.PlayerDataSync;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionStore;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput and tail latency of the {@code !col}, auto-sync and side panel pipelines against a
+ * {@link TempleApiStandIn} with injected latency and failures.
+ * <p>
+ * Run it with {@code ./gradlew templeApiLoadBenchmark}. The plugin's rate limiter is left in place, so throughput
+ * is capped at what the plugin would send to TempleOSRS; the latencies include the time spent queued for it.
+ */
+public class TempleApiLoadBenchmark
+{
+	private static final int OPERATIONS = 20;
+
+	private static final int CONCURRENCY = 8;
+
+	private static final long LATENCY_MILLIS = 80;
+
+	private static final double FAILURE_RATE = 0.02;
+
+	private static final int COLLECTION_LOG_SIZE = 1_500;
+
+	public static void main(String[] args) throws Exception
+	{
+		final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+		try (TempleApiStandIn standIn = new TempleApiStandIn())
+		{
+			standIn.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+			standIn.setFailureRate(FAILURE_RATE, 503);
+			standIn.setFixture("player_collection_log", collectionLog(COLLECTION_LOG_SIZE));
+
+			final Injector injector = Guice.createInjector(new TempleApiStandInModule(
+				standIn,
+				Files.createTempDirectory("templeosrs-load-benchmark").toFile(),
+				executor
+			));
+
+			final CollectionStore collectionStore = injector.getInstance(CollectionStore.class);
+			collectionStore.startUp();
+			collectionStore.whenReady().join();
+
+			final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+			final TempleService service = injector.getInstance(TempleService.class);
+
+			try
+			{
+				final AtomicInteger player = new AtomicInteger();
+
+				// Each lookup is for a different player, so none of them share a request
+				runBlocking("!col", CONCURRENCY, () -> {
+					final String username = "player" + player.incrementAndGet();
+
+					requestManager.getPlayerInfo(username, RequestPriority.LOOKUP).get();
+
+					return requestManager.fetchAndStorePlayerCollectionLog(username, RequestPriority.LOOKUP).get();
+				});
+
+				// The plugin uploads from a single thread, one sync at a time
+				runBlocking("auto-sync", 1, () -> requestManager.uploadObtainedCollectionLogItems(new PlayerDataSync(
+					"CousinOfKos",
+					"STANDARD",
+					1234567890,
+					Collections.singleton(new ObtainedCollectionItem(24670, "Twisted ancestral colour kit", 1))
+				)) != null);
+
+				runAsync("panel: player", () -> service.fetchUserGainsAsync("CousinOfKos", "week"));
+				runAsync("panel: clan", () -> service.fetchClanAsync("1337", "week"));
+				runAsync("panel: competition", () -> service.fetchCompetitionAsync("4242"));
+
+				System.out.printf("%d requests reached the stand-in; worker pool: %s%n", standIn.getTotalRequestCount(), injector.getInstance(TempleExecutor.class).getStats());
+			}
+			finally
+			{
+				collectionStore.shutDown();
+				injector.getInstance(RequestRateLimiter.class).shutDown();
+				injector.getInstance(TempleHttpClient.class).shutDown();
+				injector.getInstance(TempleExecutor.class).shutDown();
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Operation
+	{
+		boolean run() throws Exception;
+	}
+
+	/**
+	 * Runs the operation from a pool of threads, as the chat command and sync code calls the blocking request methods.
+	 */
+	private static void runBlocking(String name, int threads, Operation operation) throws InterruptedException
+	{
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		final AtomicInteger failures = new AtomicInteger();
+		final long start = System.nanoTime();
+
+		for (int i = 0; i < OPERATIONS; i++)
+		{
+			pool.execute(() -> {
+				final long operationStart = System.nanoTime();
+
+				try
+				{
+					if (!operation.run())
+					{
+						failures.incrementAndGet();
+					}
+				}
+				catch (Exception e)
+				{
+					failures.incrementAndGet();
+				}
+
+				latencies.add(System.nanoTime() - operationStart);
+			});
+		}
+
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.MINUTES);
+
+		report(name, latencies, failures.get(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Fires every lookup at once, as a user clicking through the side panel would.
+	 */
+	private static void runAsync(String name, Supplier<CompletableFuture<?>> lookup)
+	{
+		final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		final AtomicInteger failures = new AtomicInteger();
+		final List<CompletableFuture<?>> lookups = new ArrayList<>();
+		final long start = System.nanoTime();
+
+		for (int i = 0; i < OPERATIONS; i++)
+		{
+			final long operationStart = System.nanoTime();
+
+			lookups.add(lookup.get().whenComplete((result, e) -> {
+				if (e != null)
+				{
+					failures.incrementAndGet();
+				}
+
+				latencies.add(System.nanoTime() - operationStart);
+			}));
+		}
+
+		CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).handle((result, e) -> null).join();
+
+		report(name, latencies, failures.get(), System.nanoTime() - start);
+	}
+
+	private static void report(String name, List<Long> latencies, int failures, long elapsedNanos)
+	{
+		final List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+
+		System.out.printf(
+			"%-20s %6.2f ops/s | p50 %7.0f ms | p95 %7.0f ms | p99 %7.0f ms | max %7.0f ms | %d failed%n",
+			name,
+			sorted.size() / (elapsedNanos / 1e9),
+			percentile(sorted, 0.50),
+			percentile(sorted, 0.95),
+			percentile(sorted, 0.99),
+			percentile(sorted, 1.0),
+			failures
+		);
+	}
+
+	private static double percentile(List<Long> sortedNanos, double percentile)
+	{
+		if (sortedNanos.isEmpty())
+		{
+			return 0;
+		}
+
+		final int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+
+		return sortedNanos.get(Math.max(index, 0)) / 1e6;
+	}
+
+	private static String collectionLog(int items)
+	{
+		final StringBuilder json = new StringBuilder("{\"data\":{\"last_changed\":\"2025-01-12 18:42:07\",\"items\":[");
+
+		for (int i = 0; i < items; i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+
+			json.append(String.format("{\"id\":%d,\"count\":%d,\"date\":\"2024-06-01 17:40:31\",\"name\":\"Item %d\"}", 1000 + i, 1 + i % 3, i));
+		}
+
+		return json.append("]}}").toString();
+	}
+}
@@ -0,0 +1,177 @@
+package com.templeosrs.collectionlog.database;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.templeosrs.TempleOSRSConfig;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionDatabase;
+import com.templeosrs.util.collections.database.CollectionStore;
+import com.templeosrs.util.collections.database.MVStoreCollectionStore;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the SQL and MVStore collection stores on the plugin's workload: whole-log upserts, diffs against the
+ * saved log and single category reads, spread over more players than the configured cache size.
+ * <p>
+ * Run it with {@code ./gradlew collectionStoreBenchmark}; each store writes to its own temporary directory.
+ */
+public class CollectionStoreBenchmark
+{
+	private static final int PLAYERS = 200;
+
+	private static final int MAX_CACHED_PLAYERS = 50;
+
+	private static final int ITEMS_PER_PLAYER = 1_500;
+
+	private static final int CATEGORY_SIZE = 20;
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException
+	{
+		final TempleOSRSConfig config = mock(TempleOSRSConfig.class);
+		when(config.maxCachedPlayers()).thenReturn(MAX_CACHED_PLAYERS);
+
+		final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+		final Injector injector = Guice.createInjector(binder -> {
+			binder.bind(TempleOSRSConfig.class).toInstance(config);
+			binder.bind(ScheduledExecutorService.class).toInstance(executor);
+		});
+
+		try
+		{
+			run("H2 SQL", injector, CollectionDatabase::new);
+			run("H2 MVStore", injector, MVStoreCollectionStore::new);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static void run(String name, Injector injector, Function<File, CollectionStore> storeFactory) throws IOException
+	{
+		final File directory = Files.createTempDirectory("collection-store-benchmark").toFile();
+		final CollectionStore store = storeFactory.apply(directory);
+		final Random random = new Random(0);
+
+		injector.injectMembers(store);
+		store.startUp();
+		store.whenReady().join();
+		store.setItemOrder(IntStream.range(0, ITEMS_PER_PLAYER).boxed().collect(Collectors.toList()));
+
+		try
+		{
+			final long upsertStart = System.nanoTime();
+
+			for (int player = 0; player < PLAYERS; player++)
+			{
+				store.upsertItemsBatch(playerName(player), randomLog(random), new Timestamp(System.currentTimeMillis()));
+			}
+
+			// Make sure queued writes are on disk before they are timed as reads
+			store.flush();
+
+			final long upsertNanos = System.nanoTime() - upsertStart;
+
+			final Multiset<Integer> currentLog = HashMultiset.create();
+
+			for (ObtainedCollectionItem item : randomLog(random))
+			{
+				currentLog.add(item.getId(), item.getCount());
+			}
+
+			final Set<Integer> category = new LinkedHashSet<>();
+
+			for (int itemId = 0; itemId < CATEGORY_SIZE; itemId++)
+			{
+				category.add(itemId);
+			}
+
+			long diffNanos = 0;
+			long categoryNanos = 0;
+
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				for (int player = 0; player < PLAYERS; player++)
+				{
+					final long diffStart = System.nanoTime();
+					store.getCollectionLogDiff(playerName(player), currentLog);
+					diffNanos += System.nanoTime() - diffStart;
+
+					final long categoryStart = System.nanoTime();
+					store.getItemsByCategory(playerName(player), category);
+					categoryNanos += System.nanoTime() - categoryStart;
+				}
+			}
+
+			final long lookups = (long) PLAYERS * ROUNDS;
+
+			System.out.printf(
+				"%-12s upsert %8.2f ms/player | diff %8.3f ms | category read %8.3f ms | on disk %,d KB%n",
+				name,
+				upsertNanos / 1e6 / PLAYERS,
+				diffNanos / 1e6 / lookups,
+				categoryNanos / 1e6 / lookups,
+				directorySize(directory) / 1024
+			);
+		}
+		finally
+		{
+			store.shutDown();
+		}
+	}
+
+	private static String playerName(int player)
+	{
+		return "benchmark_player_" + player;
+	}
+
+	private static Set<ObtainedCollectionItem> randomLog(Random random)
+	{
+		final Set<ObtainedCollectionItem> items = new HashSet<>();
+
+		for (int itemId = 0; itemId < ITEMS_PER_PLAYER; itemId++)
+		{
+			if (random.nextBoolean())
+			{
+				items.add(new ObtainedCollectionItem(itemId, "Item " + itemId, 1 + random.nextInt(50)));
+			}
+		}
+
+		return items;
+	}
+
+	private static long directorySize(File directory)
+	{
+		long size = 0;
+		final File[] files = directory.listFiles();
+
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				size += file.length();
+			}
+		}
+
+		return size;
+	}
+}
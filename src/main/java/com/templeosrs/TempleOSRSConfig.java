@@ -7,6 +7,7 @@ import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup("TempleOSRS")
 public interface TempleOSRSConfig extends Config
@@ -323,4 +324,19 @@ public interface TempleOSRSConfig extends Config
 	{
 		return true;
 	}
+
+	@Range(max = 600)
+	@Units(Units.SECONDS)
+	@ConfigItem(
+		keyName = "playerInfoCacheSeconds",
+		name = "Player lookup cache",
+		description = "How long a player's collection log status is reused before it is checked again. " +
+			"Repeated !col commands for the same player within this time skip the request entirely. 0 to always check",
+		position = 6,
+		section = clogOptions
+	)
+	default int playerInfoCacheSeconds()
+	{
+		return 60;
+	}
 }
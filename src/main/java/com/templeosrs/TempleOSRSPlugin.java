@@ -31,6 +31,9 @@ import com.templeosrs.ui.clans.TempleClans;
 import com.templeosrs.ui.competitions.TempleCompetitions;
 import com.templeosrs.ui.ranks.TempleRanks;
 import com.templeosrs.util.TempleService;
+import com.templeosrs.util.api.RequestRateLimiter;
+import com.templeosrs.util.api.TempleExecutor;
+import com.templeosrs.util.api.TempleHttpClient;
 import com.templeosrs.util.collections.CollectionLogManager;
 import com.templeosrs.util.collections.SyncButtonManager;
 import com.templeosrs.util.collections.chatcommands.ChatItemNameTooltip;
@@ -114,6 +117,15 @@ public class TempleOSRSPlugin extends Plugin
 	@Inject
 	private TempleService service;
 
+	@Inject
+	private TempleHttpClient httpClient;
+
+	@Inject
+	private RequestRateLimiter rateLimiter;
+
+	@Inject
+	private TempleExecutor executor;
+
 	@Inject
 	private SyncButtonManager syncButtonManager;
 
@@ -180,6 +192,12 @@ public class TempleOSRSPlugin extends Plugin
 
 		clogManager.shutDown();
 
+		rateLimiter.shutDown();
+
+		httpClient.shutDown();
+
+		executor.shutDown();
+
 		if (config.enableClogChatCommand() && config.enableClogChatCommandItemNameTooltip())
 		{
 			overlayManager.remove(chatItemNameTooltip);
@@ -371,16 +389,7 @@ public class TempleOSRSPlugin extends Plugin
 		/* if XpUpdaterPlugin is disabled or XpUpdaterPlugin's config option for templeosrs is disabled */
 		if (!pluginManager.isPluginEnabled(xpUpdaterPlugin) || !xpUpdaterConfig.templeosrs())
 		{
-			new Thread(() -> {
-				try
-				{
-					service.addDatapointAsync(username, accountHash);
-				}
-				catch (Exception ignored)
-				{
-
-				}
-			}).start();
+			service.addDatapointAsync(username, accountHash);
 		}
 	}
 }
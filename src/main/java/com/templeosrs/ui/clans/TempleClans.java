@@ -14,6 +14,8 @@ import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.swing.BorderFactory;
@@ -68,6 +70,9 @@ public class TempleClans extends PluginPanel
 
 	public TempleService service;
 
+	/* lookup in progress, cancelled when superseded */
+	private CompletableFuture<TempleClan> pendingLookup;
+
 	@Inject
 	public TempleClans(TempleOSRSConfig config, TempleOSRSPlugin plugin, Client client, ClientThread thread, TempleService templeService)
 	{
@@ -207,6 +212,7 @@ public class TempleClans extends PluginPanel
 
 		/* reset on clear */
 		lookup.addClearListener(() -> {
+			cancelPendingLookup();
 			completed();
 			reset();
 		});
@@ -235,21 +241,11 @@ public class TempleClans extends PluginPanel
 
 		reset();
 
-		/* create separate thread for completing clan-fetch/ panel rebuilds,
-		 *  try to fetch clan,
+		/* fetch clan without blocking,
 		 *  when fetching completes, rebuild panel
 		 *  if exception, set error status
 		 */
-		new Thread(() -> {
-			try
-			{
-				service.fetchClanAsync(id, config.getCurrentTopRange().getRange()).whenCompleteAsync((result, err) -> response(id, result, err));
-			}
-			catch (Exception e)
-			{
-				error();
-			}
-		}).start();
+		lookupClan(id);
 	}
 
 	/* reload fetched clan after syncing member-list */
@@ -259,13 +255,31 @@ public class TempleClans extends PluginPanel
 
 		reset();
 
-		try
+		lookupClan(id);
+	}
+
+	private void lookupClan(String id)
+	{
+		final CompletableFuture<TempleClan> clanLookup = service.fetchClanAsync(id, config.getCurrentTopRange().getRange());
+
+		setPendingLookup(clanLookup);
+
+		clanLookup.whenCompleteAsync((result, err) -> response(id, result, err), SwingUtilities::invokeLater);
+	}
+
+	/* cancel the previous lookup's requests and parsing, only the latest one is shown */
+	private synchronized void setPendingLookup(CompletableFuture<TempleClan> next)
+	{
+		cancelPendingLookup();
+		pendingLookup = next;
+	}
+
+	private synchronized void cancelPendingLookup()
+	{
+		if (pendingLookup != null)
 		{
-			service.fetchClanAsync(id, config.getCurrentTopRange().getRange()).whenCompleteAsync((result, err) -> response(id, result, err));
-		}
-		catch (Exception e)
-		{
-			error();
+			pendingLookup.cancel(false);
+			pendingLookup = null;
 		}
 	}
 
@@ -386,28 +400,18 @@ public class TempleClans extends PluginPanel
 		loading();
 
 		String id = lookup.getText();
-		/* create separate thread for completing clan-post/ panel reload,
-		 *  try to post clan members given clan-id, verification, and list,
+		/* post clan members given clan-id, verification, and list without blocking,
 		 *  when post completes, check response -> reload panel
 		 *  if exception, set error status
 		 */
-		new Thread(() -> {
-			try
-			{
-				if (config.onlyAddMembers())
-				{
-					service.addClanMembersAsync(id, config.clanKey(), filteredList).whenCompleteAsync((result, err) -> response(id, result, err));
-				}
-				else
-				{
-					service.syncClanMembersAsync(id, config.clanKey(), filteredList).whenCompleteAsync((result, err) -> response(id, result, err));
-				}
-			}
-			catch (Exception e)
-			{
-				error();
-			}
-		}).start();
+		if (config.onlyAddMembers())
+		{
+			service.addClanMembersAsync(id, config.clanKey(), filteredList).whenCompleteAsync((result, err) -> response(id, result, err), SwingUtilities::invokeLater);
+		}
+		else
+		{
+			service.syncClanMembersAsync(id, config.clanKey(), filteredList).whenCompleteAsync((result, err) -> response(id, result, err), SwingUtilities::invokeLater);
+		}
 	}
 
 	/* filter unwanted ranks for members-sync */
@@ -451,6 +455,12 @@ public class TempleClans extends PluginPanel
 	/* Group information response */
 	private void response(String id, TempleClan result, Throwable e)
 	{
+		/* superseded by a newer lookup, which updates the panel instead */
+		if (e instanceof CancellationException)
+		{
+			return;
+		}
+
 		remove(errorPanel);
 
 		if (!lookup.getText().equals(id))
@@ -204,21 +204,11 @@ public class TempleCompetitions extends PluginPanel
 
 		reset();
 
-		/* create separate thread for completing competition-fetch/ panel rebuilds,
-		 *  try to fetch competition,
+		/* fetch competition without blocking,
 		 *  when fetching completes, rebuild panel
 		 *  if exception, set error status
 		 */
-		new Thread(() -> {
-			try
-			{
-				service.fetchCompetitionAsync(id).whenCompleteAsync((result, err) -> response(id, result, err));
-			}
-			catch (Exception e)
-			{
-				error();
-			}
-		}).start();
+		service.fetchCompetitionAsync(id).whenCompleteAsync((result, err) -> response(id, result, err), SwingUtilities::invokeLater);
 	}
 
 	private void response(String id, TempleCompetition result, Throwable e)
@@ -41,6 +41,8 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import javax.inject.Inject;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -81,6 +83,9 @@ public class TempleRanks extends PluginPanel
 
 	private final TempleService service;
 
+	/* lookup in progress, cancelled when superseded */
+	private CompletableFuture<TemplePlayer> pendingLookup;
+
 	@Inject
 	public TempleRanks(TempleOSRSConfig config, Client client, TempleService templeService, NameAutocompleter nameAutocompleter)
 	{
@@ -193,6 +198,7 @@ public class TempleRanks extends PluginPanel
 	public void shutdown()
 	{
 		removeInputKeyListener(this.nameAutocompleter);
+		cancelPendingLookup();
 	}
 
 	private IconTextField buildTextField()
@@ -230,6 +236,7 @@ public class TempleRanks extends PluginPanel
 
 		/* reset icons and panel on clear */
 		lookup.addClearListener(() -> {
+			cancelPendingLookup();
 			completed();
 			reset();
 		});
@@ -267,26 +274,41 @@ public class TempleRanks extends PluginPanel
 
 		String period = PlayerRanges.get(String.valueOf(TempleRanksDuration.jComboBox.getSelectedItem())).getRange();
 
-		/* create separate thread for completing player-fetch/ panel rebuilds,
-		 *  try to fetch player gains,
+		/* fetch player gains without blocking,
 		 *  when fetching completes, rebuild panel
 		 *  if exception, set error status
 		 */
-		new Thread(() -> {
-			try
-			{
-				service.fetchUserGainsAsync(username, period).whenCompleteAsync((result, err) -> response(username, result, err));
-			}
-			catch (Exception e)
-			{
-				e.printStackTrace();
-				error();
-			}
-		}).start();
+		final CompletableFuture<TemplePlayer> playerLookup = service.fetchUserGainsAsync(username, period);
+
+		setPendingLookup(playerLookup);
+
+		playerLookup.whenCompleteAsync((result, err) -> response(username, result, err), SwingUtilities::invokeLater);
+	}
+
+	/* cancel the previous lookup's requests and parsing, only the latest one is shown */
+	private synchronized void setPendingLookup(CompletableFuture<TemplePlayer> next)
+	{
+		cancelPendingLookup();
+		pendingLookup = next;
+	}
+
+	private synchronized void cancelPendingLookup()
+	{
+		if (pendingLookup != null)
+		{
+			pendingLookup.cancel(false);
+			pendingLookup = null;
+		}
 	}
 
 	private void response(String username, TemplePlayer result, Throwable e)
 	{
+		/* superseded by a newer lookup, which updates the panel instead */
+		if (e instanceof CancellationException)
+		{
+			return;
+		}
+
 		/* search-text-field has changed since start of fetching player data */
 		if (!format(lookup.getText()).equals(username))
 		{
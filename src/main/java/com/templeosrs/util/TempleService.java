@@ -1,172 +1,219 @@
 package com.templeosrs.util;
 
 import com.google.gson.Gson;
+import com.templeosrs.util.api.RequestPriority;
+import com.templeosrs.util.api.TempleApi;
+import com.templeosrs.util.api.TempleHttpClient;
 import com.templeosrs.util.clan.TempleClan;
 import com.templeosrs.util.comp.TempleCompetition;
 import com.templeosrs.util.player.TemplePlayer;
 import com.templeosrs.util.sync.TempleSync;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import javax.inject.Inject;
-import okhttp3.Call;
 import okhttp3.FormBody;
 import okhttp3.HttpUrl;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 import okhttp3.ResponseBody;
 
 public class TempleService
 {
 	@Inject
-	private OkHttpClient client;
+	private TempleHttpClient httpClient;
+
+	@Inject
+	private TempleApi api;
 
 	@Inject
 	private Gson gson;
 
-	private String request(Request request) throws Exception
+	/**
+	 * Sends the request through {@link TempleHttpClient#execute}, tied to the lookup it belongs to.
+	 *
+	 * @param request  The request to send
+	 * @param priority The request's place in the rate limiter's queue
+	 * @param owner    The future of the lookup this request belongs to; cancelling or failing it cancels the call
+	 * @return The response body
+	 */
+	private CompletableFuture<String> request(Request request, RequestPriority priority, CompletableFuture<?> owner)
 	{
-		String JSON = null;
-
-		Call call = client.newCall(request);
-		Response response = call.execute();
-		ResponseBody body = response.body();
-
-		if (body != null)
+		if (owner.isDone())
 		{
-			JSON = body.string();
-			response.close();
+			final CompletableFuture<String> future = new CompletableFuture<>();
+			future.cancel(false);
+			return future;
 		}
 
-		return JSON;
+		final CompletableFuture<String> future = httpClient.execute(request, priority, ResponseBody::string);
+
+		// Once the lookup has failed, the other calls it is waiting on are no longer needed
+		owner.whenComplete((result, e) -> {
+			if (e != null)
+			{
+				future.cancel(false);
+			}
+		});
+
+		return future;
 	}
 
-	public String requestUserSkillGains(String player, String duration) throws Exception
+	/**
+	 * Completes the lookup's future with the outcome of the given stage, unless it has been cancelled.
+	 */
+	private static <T> CompletableFuture<T> completeWith(CompletableFuture<T> owner, CompletableFuture<T> stage)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("player").addPathSegment("view").addPathSegment("overview_skilling_view.php").addQueryParameter("player", player).addQueryParameter("duration", duration).build();
+		stage.whenComplete((result, e) -> {
+			if (e != null)
+			{
+				owner.completeExceptionally(e);
+			}
+			else
+			{
+				owner.complete(result);
+			}
+		});
+
+		return owner;
+	}
 
-		Request request = new Request.Builder().url(url).build();
+	/**
+	 * Completes the lookup's future by combining requests that were all sent at once.
+	 * The lookup fails as soon as any of them fails, which also cancels the rest.
+	 * Responses are not combined once the lookup has been cancelled.
+	 */
+	private static <T> CompletableFuture<T> completeWithAll(CompletableFuture<T> owner, Supplier<T> combiner, CompletableFuture<?>... parts)
+	{
+		for (CompletableFuture<?> part : parts)
+		{
+			part.whenComplete((result, e) -> {
+				if (e != null)
+				{
+					owner.completeExceptionally(e);
+				}
+			});
+		}
 
-		return request(request);
+		return completeWith(owner, CompletableFuture.allOf(parts).thenApply(ignored -> owner.isDone() ? null : combiner.get()));
 	}
 
-	public String requestUserBossGains(String player, String duration) throws Exception
+	private Request userSkillGainsRequest(String player, String duration)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("player").addPathSegment("view").addPathSegment("overview_skilling_view.php").addQueryParameter("player", player).addQueryParameter("duration", duration).addQueryParameter("tracking", "bosses").build();
-
-		Request request = new Request.Builder().url(url).build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("player").addPathSegment("view").addPathSegment("overview_skilling_view.php").addQueryParameter("player", player).addQueryParameter("duration", duration).build();
 
-		return request(request);
+		return new Request.Builder().url(url).build();
 	}
 
-	public String requestClanOverview(String id) throws Exception
+	private Request userBossGainsRequest(String player, String duration)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("api").addPathSegment("group_info.php").addQueryParameter("id", id).build();
-
-		Request request = new Request.Builder().url(url).build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("player").addPathSegment("view").addPathSegment("overview_skilling_view.php").addQueryParameter("player", player).addQueryParameter("duration", duration).addQueryParameter("tracking", "bosses").build();
 
-		return request(request);
+		return new Request.Builder().url(url).build();
 	}
 
-	public String requestClanAchievements(String id) throws Exception
+	private Request clanOverviewRequest(String id)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("api").addPathSegment("group_achievements.php").addQueryParameter("id", id).build();
-
-		Request request = new Request.Builder().url(url).build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("api").addPathSegment("group_info.php").addQueryParameter("id", id).build();
 
-		return request(request);
+		return new Request.Builder().url(url).build();
 	}
 
-	public String requestCompetitionInfo(String id) throws Exception
+	private Request clanAchievementsRequest(String id)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("api").addPathSegment("competition_info.php").addQueryParameter("id", id).build();
-
-		Request request = new Request.Builder().url(url).build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("api").addPathSegment("group_achievements.php").addQueryParameter("id", id).build();
 
-		return request(request);
+		return new Request.Builder().url(url).build();
 	}
 
-	public String requestClanCurrentTop(String skill, String id, String range) throws Exception
+	private Request competitionInfoRequest(String id)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("api").addPathSegment("current_top").addPathSegment(range + ".php").addQueryParameter("skill", skill).addQueryParameter("group", id).build();
-
-		Request request = new Request.Builder().url(url).build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("api").addPathSegment("competition_info.php").addQueryParameter("id", id).build();
 
-		return request(request);
+		return new Request.Builder().url(url).build();
 	}
 
-	public CompletableFuture<TemplePlayer> fetchUserGainsAsync(String player, String duration) throws Exception
+	private Request clanCurrentTopRequest(String skill, String id, String range)
 	{
-		String playerSkillsOverviewJSON = requestUserSkillGains(player, duration);
-		String playerBossingOverviewJSON = requestUserBossGains(player, duration);
+		HttpUrl url = api.newUrlBuilder().addPathSegment("api").addPathSegment("current_top").addPathSegment(range + ".php").addQueryParameter("skill", skill).addQueryParameter("group", id).build();
 
-		CompletableFuture<TemplePlayer> future = new CompletableFuture<>();
-		future.complete(new TemplePlayer(playerSkillsOverviewJSON, playerBossingOverviewJSON, gson));
-		return future;
+		return new Request.Builder().url(url).build();
 	}
 
-	public CompletableFuture<TempleClan> fetchClanAsync(String id, String range) throws Exception
+	public CompletableFuture<TemplePlayer> fetchUserGainsAsync(String player, String duration)
 	{
-		String clanOverviewJSON = requestClanOverview(id);
-		String clanAchievementsJSON = requestClanAchievements(id);
-		String clanCurrentTopEhpJSON = requestClanCurrentTop("ehp", id, range);
-		String clanCurrentTopEhbJSON = requestClanCurrentTop("ehb", id, range);
+		final CompletableFuture<TemplePlayer> future = new CompletableFuture<>();
 
-		CompletableFuture<TempleClan> future = new CompletableFuture<>();
-		future.complete(new TempleClan(clanOverviewJSON, clanAchievementsJSON, clanCurrentTopEhpJSON, clanCurrentTopEhbJSON, gson));
-		return future;
+		final CompletableFuture<String> playerSkillsOverview = request(userSkillGainsRequest(player, duration), RequestPriority.LOOKUP, future);
+		final CompletableFuture<String> playerBossingOverview = request(userBossGainsRequest(player, duration), RequestPriority.LOOKUP, future);
+
+		return completeWithAll(
+			future,
+			() -> new TemplePlayer(playerSkillsOverview.join(), playerBossingOverview.join(), gson),
+			playerSkillsOverview, playerBossingOverview
+		);
 	}
 
-	public CompletableFuture<TempleCompetition> fetchCompetitionAsync(String id) throws Exception
+	public CompletableFuture<TempleClan> fetchClanAsync(String id, String range)
 	{
-		String competitionOverviewJSON = requestCompetitionInfo(id);
-
-		CompletableFuture<TempleCompetition> future = new CompletableFuture<>();
-		future.complete(new TempleCompetition(competitionOverviewJSON, gson));
-		return future;
+		final CompletableFuture<TempleClan> future = new CompletableFuture<>();
+
+		final CompletableFuture<String> clanOverview = request(clanOverviewRequest(id), RequestPriority.LOOKUP, future);
+		final CompletableFuture<String> clanAchievements = request(clanAchievementsRequest(id), RequestPriority.LOOKUP, future);
+		final CompletableFuture<String> clanCurrentTopEhp = request(clanCurrentTopRequest("ehp", id, range), RequestPriority.LOOKUP, future);
+		final CompletableFuture<String> clanCurrentTopEhb = request(clanCurrentTopRequest("ehb", id, range), RequestPriority.LOOKUP, future);
+
+		return completeWithAll(
+			future,
+			() -> new TempleClan(clanOverview.join(), clanAchievements.join(), clanCurrentTopEhp.join(), clanCurrentTopEhb.join(), gson),
+			clanOverview, clanAchievements, clanCurrentTopEhp, clanCurrentTopEhb
+		);
 	}
 
-	public CompletableFuture<TempleSync> syncClanMembersAsync(String id, String key, List<String> members) throws Exception
+	public CompletableFuture<TempleCompetition> fetchCompetitionAsync(String id)
 	{
-		String syncResponseJSON;
+		final CompletableFuture<TempleCompetition> future = new CompletableFuture<>();
+
+		return completeWith(future, request(competitionInfoRequest(id), RequestPriority.LOOKUP, future)
+			.thenApply(competitionOverviewJSON -> new TempleCompetition(competitionOverviewJSON, gson)));
+	}
 
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("api").addPathSegment("edit_group.php").build();
+	public CompletableFuture<TempleSync> syncClanMembersAsync(String id, String key, List<String> members)
+	{
+		HttpUrl url = api.newUrlBuilder().addPathSegment("api").addPathSegment("edit_group.php").build();
 
 		RequestBody formBody = new FormBody.Builder().add("id", id).add("key", key).add("memberlist", String.valueOf(members)).build();
 
 		Request request = new Request.Builder().url(url).post(formBody).build();
 
-		syncResponseJSON = request(request);
+		final CompletableFuture<TempleSync> future = new CompletableFuture<>();
 
-		CompletableFuture<TempleSync> future = new CompletableFuture<>();
-		future.complete(new TempleSync(syncResponseJSON, gson));
-		return future;
+		return completeWith(future, request(request, RequestPriority.UPLOAD, future)
+			.thenApply(syncResponseJSON -> new TempleSync(syncResponseJSON, gson)));
 	}
 
-	public CompletableFuture<TempleSync> addClanMembersAsync(String id, String key, List<String> members) throws Exception
+	public CompletableFuture<TempleSync> addClanMembersAsync(String id, String key, List<String> members)
 	{
-		String syncResponseJSON;
-
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("api").addPathSegment("add_group_member.php").build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("api").addPathSegment("add_group_member.php").build();
 
 		RequestBody formBody = new FormBody.Builder().add("id", id).add("key", key).add("players", String.valueOf(members)).build();
 
 		Request request = new Request.Builder().url(url).post(formBody).build();
 
-		syncResponseJSON = request(request);
+		final CompletableFuture<TempleSync> future = new CompletableFuture<>();
 
-		CompletableFuture<TempleSync> future = new CompletableFuture<>();
-		future.complete(new TempleSync(syncResponseJSON, gson));
-		return future;
+		return completeWith(future, request(request, RequestPriority.UPLOAD, future)
+			.thenApply(syncResponseJSON -> new TempleSync(syncResponseJSON, gson)));
 	}
 
-	public void addDatapointAsync(String username, long accountHash) throws Exception
+	public CompletableFuture<Void> addDatapointAsync(String username, long accountHash)
 	{
-		HttpUrl url = new HttpUrl.Builder().scheme("https").host("templeosrs.com").addPathSegment("php").addPathSegment("add_datapoint.php").addQueryParameter("player", username).addQueryParameter("accountHash", Long.toString(accountHash)).build();
+		HttpUrl url = api.newUrlBuilder().addPathSegment("php").addPathSegment("add_datapoint.php").addQueryParameter("player", username).addQueryParameter("accountHash", Long.toString(accountHash)).build();
 
 		Request request = new Request.Builder().url(url).build();
 
-		request(request);
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		return completeWith(future, request(request, RequestPriority.LOCAL_PLAYER, future).thenApply(response -> null));
 	}
 }
@@ -0,0 +1,154 @@
+package com.templeosrs.util.api;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stops sending requests to an endpoint that keeps failing, shared by every TempleOSRS request.
+ * <p>
+ * After {@value #FAILURE_THRESHOLD} failures in a row (network errors, 5xx or 429 responses) the endpoint's
+ * circuit opens and requests to it fail straight away. Once the cool-down has passed, one request is let through
+ * as a probe: if it succeeds the circuit closes, otherwise it opens again for twice as long, up to 10 minutes.
+ */
+@Slf4j
+@Singleton
+public class CircuitBreakers
+{
+	private static final int FAILURE_THRESHOLD = 3;
+
+	private static final long BASE_OPEN_MILLIS = 30_000;
+
+	private static final long MAX_OPEN_MILLIS = 10 * 60_000;
+
+	/**
+	 * A probe that never reports back (e.g. it was cancelled before being sent) stops blocking others after this
+	 */
+	private static final long PROBE_TIMEOUT_MILLIS = 60_000;
+
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	private final LongSupplier clock;
+
+	@Inject
+	public CircuitBreakers()
+	{
+		this(System::currentTimeMillis);
+	}
+
+	/**
+	 * @param clock The current time in milliseconds
+	 */
+	public CircuitBreakers(LongSupplier clock)
+	{
+		this.clock = clock;
+	}
+
+	/**
+	 * Checks whether a request may be sent to the endpoint, which must then be reported with
+	 * {@link #recordSuccess(String)} or {@link #recordFailure(String)}.
+	 *
+	 * @param endpoint The path of the endpoint
+	 * @throws CircuitOpenException If the endpoint is failing and still cooling down
+	 */
+	public void checkAllowed(String endpoint) throws CircuitOpenException
+	{
+		final Circuit circuit = circuits.computeIfAbsent(endpoint, key -> new Circuit());
+
+		synchronized (circuit)
+		{
+			if (circuit.openCount == 0)
+			{
+				return;
+			}
+
+			final long now = clock.getAsLong();
+
+			if (now < circuit.openUntilMillis || now < circuit.probeStartedMillis + PROBE_TIMEOUT_MILLIS)
+			{
+				throw new CircuitOpenException(endpoint, Math.max(circuit.openUntilMillis, circuit.probeStartedMillis + PROBE_TIMEOUT_MILLIS) - now);
+			}
+
+			log.debug("🔌 Probing {} after it was unavailable", endpoint);
+
+			circuit.probeStartedMillis = now;
+		}
+	}
+
+	public void recordSuccess(String endpoint)
+	{
+		final Circuit circuit = circuits.computeIfAbsent(endpoint, key -> new Circuit());
+
+		synchronized (circuit)
+		{
+			if (circuit.openCount > 0)
+			{
+				log.debug("🔌 {} is available again", endpoint);
+			}
+
+			circuit.consecutiveFailures = 0;
+			circuit.openCount = 0;
+			circuit.openUntilMillis = 0;
+			circuit.probeStartedMillis = Long.MIN_VALUE / 2;
+		}
+	}
+
+	public void recordFailure(String endpoint)
+	{
+		final Circuit circuit = circuits.computeIfAbsent(endpoint, key -> new Circuit());
+
+		synchronized (circuit)
+		{
+			circuit.consecutiveFailures++;
+			circuit.probeStartedMillis = Long.MIN_VALUE / 2;
+
+			if (circuit.consecutiveFailures < FAILURE_THRESHOLD)
+			{
+				return;
+			}
+
+			final long openMillis = Math.min(MAX_OPEN_MILLIS, BASE_OPEN_MILLIS << Math.min(circuit.openCount, 10));
+
+			circuit.openCount++;
+			circuit.openUntilMillis = clock.getAsLong() + openMillis;
+
+			log.warn("🔌 {} failed {} times in a row; pausing requests to it for {} s", endpoint, circuit.consecutiveFailures, openMillis / 1000);
+		}
+	}
+
+	/**
+	 * @return Whether a response with this status code counts as the endpoint failing
+	 */
+	public static boolean isFailure(int code)
+	{
+		return code >= 500 || code == 429;
+	}
+
+	public static class CircuitOpenException extends IOException
+	{
+		private static final long serialVersionUID = 1L;
+
+		public CircuitOpenException(String endpoint, long retryAfterMillis)
+		{
+			super(String.format("%s is unavailable; retrying in %d s", endpoint, Math.max(retryAfterMillis, 0) / 1000));
+		}
+	}
+
+	private static class Circuit
+	{
+		private int consecutiveFailures;
+
+		/**
+		 * How many times the circuit has opened since the endpoint last succeeded
+		 */
+		private int openCount;
+
+		private long openUntilMillis;
+
+		private long probeStartedMillis = Long.MIN_VALUE / 2;
+	}
+}
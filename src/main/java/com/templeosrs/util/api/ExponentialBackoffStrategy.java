@@ -0,0 +1,121 @@
+package com.templeosrs.util.api;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spaces out the retries of a repeating task, such as a sync that is attempted every game tick until it succeeds.
+ * <p>
+ * Each attempt pushes the next one back exponentially (2s, 4s, 8s, ... up to 5 minutes), with jitter so clients
+ * that failed together don't retry together. Each task gets a budget of attempts before it gives up, which
+ * {@link #reset()} restores once the task succeeds.
+ * <p>
+ * Each task needs its own instance, so it isn't bound as a singleton: resetting or exhausting one task's budget must
+ * not affect another's. The health of the server itself is shared through {@link CircuitBreakers}.
+ */
+@Slf4j
+public class ExponentialBackoffStrategy
+{
+	private static final long BASE_DELAY_MILLIS = 2_000;
+
+	private static final long MAX_DELAY_MILLIS = 5 * 60_000;
+
+	/**
+	 * Attempts allowed before the task is abandoned
+	 */
+	private static final int RETRY_BUDGET = 5;
+
+	private final LongSupplier clock;
+
+	private final Random random;
+
+	@Getter
+	@Setter
+	private volatile boolean submitting = false;
+
+	private int requestAttemptCount = 0;
+
+	private long nextAttemptMillis = 0;
+
+	@Inject
+	public ExponentialBackoffStrategy()
+	{
+		this(System::currentTimeMillis, new Random());
+	}
+
+	/**
+	 * @param clock  The current time in milliseconds
+	 * @param random The source of jitter
+	 */
+	public ExponentialBackoffStrategy(LongSupplier clock, Random random)
+	{
+		this.clock = clock;
+		this.random = random;
+	}
+
+	public synchronized void reset()
+	{
+		submitting = false;
+		requestAttemptCount = 0;
+		nextAttemptMillis = 0;
+	}
+
+	public void finishCycle()
+	{
+		submitting = false;
+	}
+
+	/**
+	 * Checks whether the task has to keep waiting. If not, an attempt is counted and the next one is pushed back,
+	 * in case this one fails.
+	 */
+	public synchronized boolean shouldSkipRequest()
+	{
+		final long now = clock.getAsLong();
+
+		if (now < nextAttemptMillis)
+		{
+			submitting = false;
+
+			log.debug("⚠️ Skipping request for another {} ms due to backoff", nextAttemptMillis - now);
+
+			return true;
+		}
+
+		requestAttemptCount++;
+		nextAttemptMillis = now + getDelayMillis(requestAttemptCount);
+
+		return false;
+	}
+
+	/**
+	 * @return True once the retry budget has been used up; the strategy is reset so the next sync starts afresh
+	 */
+	public synchronized boolean isRequestLimitReached()
+	{
+		final boolean isRequestLimitReached = !submitting && requestAttemptCount >= RETRY_BUDGET;
+
+		if (isRequestLimitReached)
+		{
+			log.error("❌ Maximum number of retries reached; aborting request!");
+
+			reset();
+		}
+
+		return isRequestLimitReached;
+	}
+
+	/**
+	 * Half the delay is fixed and half is random, so retries are spread out but never immediate.
+	 */
+	private long getDelayMillis(int attempt)
+	{
+		final long delay = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt - 1, 20));
+
+		return delay / 2 + (long) (random.nextDouble() * (delay / 2));
+	}
+}
@@ -0,0 +1,66 @@
+package com.templeosrs.util.api;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import static net.runelite.http.api.RuneLiteAPI.JSON;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Serializes an object as gzipped JSON straight into the request, without building the JSON string first.
+ * <p>
+ * The compressed length isn't known up front, so the body is sent with chunked transfer encoding. The request also
+ * needs a {@code Content-Encoding: gzip} header.
+ */
+public class GzipJsonRequestBody extends RequestBody
+{
+	private final Gson gson;
+
+	private final Object data;
+
+	/**
+	 * @param gson The Gson instance to serialize with
+	 * @param data The object to send
+	 */
+	public GzipJsonRequestBody(Gson gson, Object data)
+	{
+		this.gson = gson;
+		this.data = data;
+	}
+
+	@Nullable
+	@Override
+	public MediaType contentType()
+	{
+		return JSON;
+	}
+
+	@Override
+	public void writeTo(@NotNull BufferedSink sink) throws IOException
+	{
+		// Closing the gzip stream writes its trailer, but the request's own sink is OkHttp's to close
+		final BufferedSink gzipSink = Okio.buffer(new GzipSink(new ForwardingSink(sink)
+		{
+			@Override
+			public void close()
+			{
+			}
+		}));
+
+		final JsonWriter writer = new JsonWriter(new OutputStreamWriter(gzipSink.outputStream(), StandardCharsets.UTF_8));
+
+		gson.toJson(data, data.getClass(), writer);
+		writer.flush();
+
+		gzipSink.close();
+	}
+}
@@ -0,0 +1,436 @@
+package com.templeosrs.util.api;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Records how each TempleOSRS endpoint performs: latency, status codes, bytes sent and received, and retries.
+ * <p>
+ * {@link #callInterceptor()} sees each call once, including calls answered from the HTTP cache, and times it up to
+ * the response headers. {@link #networkInterceptor()} sees every attempt that goes over the network, so it counts
+ * the bytes on the wire and any attempts OkHttp makes beyond the first as retries.
+ * Read the numbers with {@link #getSnapshot()}, or {@link #logSummary()} to dump them to the log.
+ */
+@Slf4j
+@Singleton
+public class HttpMetrics
+{
+	/**
+	 * Upper bounds of the latency histogram's buckets in milliseconds; the last bucket holds everything slower
+	 */
+	private static final long[] LATENCY_BUCKETS_MILLIS = {50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000};
+
+	private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+	/**
+	 * @return An application interceptor recording each call's latency and outcome
+	 */
+	public Interceptor callInterceptor()
+	{
+		return chain -> {
+			final Recorder recorder = recorder(chain.request().url());
+			final long start = System.nanoTime();
+			final Response response;
+
+			try
+			{
+				response = chain.proceed(chain.request());
+			}
+			catch (IOException e)
+			{
+				recorder.recordFailure(System.nanoTime() - start);
+				throw e;
+			}
+
+			recorder.recordResponse(response.code(), System.nanoTime() - start, response.networkResponse() == null);
+
+			return response;
+		};
+	}
+
+	/**
+	 * @return A network interceptor recording bytes on the wire and retried attempts
+	 */
+	public Interceptor networkInterceptor()
+	{
+		return chain -> {
+			final Recorder recorder = recorder(chain.request().url());
+			Request request = chain.request();
+
+			// Any attempt after a call's first is OkHttp retrying it or following a redirect
+			if (recorder.isRetry(chain.call()))
+			{
+				recorder.retries.incrementAndGet();
+			}
+
+			if (request.body() != null)
+			{
+				request = request.newBuilder()
+					.method(request.method(), new CountingRequestBody(request.body(), recorder.bytesOut))
+					.build();
+			}
+
+			final Response response = chain.proceed(request);
+			final ResponseBody body = response.body();
+
+			if (body == null)
+			{
+				return response;
+			}
+
+			return response.newBuilder()
+				.body(new CountingResponseBody(body, recorder.bytesIn))
+				.build();
+		};
+	}
+
+	/**
+	 * Counts a request that was sent again by the plugin itself, e.g. uncompressed after a compressed upload was
+	 * rejected.
+	 */
+	public void recordRetry(HttpUrl url)
+	{
+		recorder(url).retries.incrementAndGet();
+	}
+
+	/**
+	 * @return Each endpoint's numbers so far, by endpoint name
+	 */
+	public Map<String, EndpointStats> getSnapshot()
+	{
+		final Map<String, EndpointStats> snapshot = new TreeMap<>();
+
+		recorders.forEach((endpoint, recorder) -> snapshot.put(endpoint, recorder.snapshot()));
+
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * Writes one line per endpoint to the log.
+	 */
+	public void logSummary()
+	{
+		getSnapshot().forEach((endpoint, stats) -> log.debug(
+			"📊 {}: {} calls ({} cached, {} failed, {} retries) | p50 {} ms, p95 {} ms, p99 {} ms, max {} ms | {} KB in, {} KB out | status {}",
+			endpoint,
+			stats.getCalls(),
+			stats.getCacheHits(),
+			stats.getFailures(),
+			stats.getRetries(),
+			stats.getLatencyPercentileMillis(0.50),
+			stats.getLatencyPercentileMillis(0.95),
+			stats.getLatencyPercentileMillis(0.99),
+			stats.getMaxLatencyMillis(),
+			stats.getBytesIn() / 1024,
+			stats.getBytesOut() / 1024,
+			stats.getStatusCodes()
+		));
+	}
+
+	private Recorder recorder(HttpUrl url)
+	{
+		return recorders.computeIfAbsent(endpointName(url), key -> new Recorder());
+	}
+
+	/**
+	 * @return The endpoint's file name without {@code .php}, e.g. {@code player_info}, or {@code current_top} for
+	 * every range of the current top endpoint
+	 */
+	static String endpointName(HttpUrl url)
+	{
+		final int segments = url.pathSize();
+
+		if (segments > 1 && url.pathSegments().get(segments - 2).equals("current_top"))
+		{
+			return "current_top";
+		}
+
+		return url.pathSegments().get(segments - 1).replace(".php", "");
+	}
+
+	@Value
+	public static class EndpointStats
+	{
+		long calls;
+
+		long cacheHits;
+
+		/**
+		 * Calls that failed without a response, e.g. timeouts and connection errors
+		 */
+		long failures;
+
+		long retries;
+
+		long bytesIn;
+
+		long bytesOut;
+
+		long maxLatencyMillis;
+
+		long totalLatencyMillis;
+
+		/**
+		 * Response counts by status code
+		 */
+		Map<Integer, Long> statusCodes;
+
+		/**
+		 * Call counts per latency bucket, matching {@link #getLatencyBucketsMillis()} plus one bucket for slower calls
+		 */
+		long[] latencyHistogram;
+
+		public long[] getLatencyBucketsMillis()
+		{
+			return LATENCY_BUCKETS_MILLIS.clone();
+		}
+
+		/**
+		 * @return The upper bound of the bucket the percentile falls in, or the maximum latency for the last bucket
+		 */
+		public long getLatencyPercentileMillis(double percentile)
+		{
+			long total = 0;
+
+			for (long count : latencyHistogram)
+			{
+				total += count;
+			}
+
+			if (total == 0)
+			{
+				return 0;
+			}
+
+			final long rank = (long) Math.ceil(percentile * total);
+			long seen = 0;
+
+			for (int bucket = 0; bucket < LATENCY_BUCKETS_MILLIS.length; bucket++)
+			{
+				seen += latencyHistogram[bucket];
+
+				if (seen >= rank)
+				{
+					return Math.min(LATENCY_BUCKETS_MILLIS[bucket], maxLatencyMillis);
+				}
+			}
+
+			return maxLatencyMillis;
+		}
+	}
+
+	private static class Recorder
+	{
+		private final AtomicLong calls = new AtomicLong();
+
+		private final AtomicLong cacheHits = new AtomicLong();
+
+		private final AtomicLong failures = new AtomicLong();
+
+		private final AtomicLong retries = new AtomicLong();
+
+		private final AtomicLong bytesIn = new AtomicLong();
+
+		private final AtomicLong bytesOut = new AtomicLong();
+
+		private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+		private final AtomicLong totalLatencyMillis = new AtomicLong();
+
+		private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_MILLIS.length + 1);
+
+		private final Map<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<>();
+
+		/**
+		 * Calls that have already made a network attempt, so another one is a retry
+		 */
+		private final Map<Call, Boolean> attemptedCalls = Collections.synchronizedMap(new WeakHashMap<>());
+
+		private boolean isRetry(Call call)
+		{
+			return attemptedCalls.put(call, Boolean.TRUE) != null;
+		}
+
+		private void recordResponse(int code, long latencyNanos, boolean fromCache)
+		{
+			statusCodes.computeIfAbsent(code, key -> new AtomicLong()).incrementAndGet();
+
+			if (fromCache)
+			{
+				cacheHits.incrementAndGet();
+			}
+
+			recordLatency(latencyNanos);
+		}
+
+		private void recordFailure(long latencyNanos)
+		{
+			failures.incrementAndGet();
+
+			recordLatency(latencyNanos);
+		}
+
+		private void recordLatency(long latencyNanos)
+		{
+			final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+			int bucket = 0;
+
+			while (bucket < LATENCY_BUCKETS_MILLIS.length && latencyMillis > LATENCY_BUCKETS_MILLIS[bucket])
+			{
+				bucket++;
+			}
+
+			calls.incrementAndGet();
+			totalLatencyMillis.addAndGet(latencyMillis);
+			maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+			latencyHistogram.incrementAndGet(bucket);
+		}
+
+		private EndpointStats snapshot()
+		{
+			final Map<Integer, Long> codes = new TreeMap<>();
+			final long[] histogram = new long[latencyHistogram.length()];
+
+			statusCodes.forEach((code, count) -> codes.put(code, count.get()));
+
+			for (int bucket = 0; bucket < histogram.length; bucket++)
+			{
+				histogram[bucket] = latencyHistogram.get(bucket);
+			}
+
+			return new EndpointStats(
+				calls.get(),
+				cacheHits.get(),
+				failures.get(),
+				retries.get(),
+				bytesIn.get(),
+				bytesOut.get(),
+				maxLatencyMillis.get(),
+				totalLatencyMillis.get(),
+				codes,
+				histogram
+			);
+		}
+	}
+
+	private static class CountingRequestBody extends RequestBody
+	{
+		private final RequestBody delegate;
+
+		private final AtomicLong bytesOut;
+
+		CountingRequestBody(RequestBody delegate, AtomicLong bytesOut)
+		{
+			this.delegate = delegate;
+			this.bytesOut = bytesOut;
+		}
+
+		@Nullable
+		@Override
+		public MediaType contentType()
+		{
+			return delegate.contentType();
+		}
+
+		@Override
+		public long contentLength() throws IOException
+		{
+			return delegate.contentLength();
+		}
+
+		@Override
+		public void writeTo(@NotNull BufferedSink sink) throws IOException
+		{
+			final BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink)
+			{
+				@Override
+				public void write(@NotNull Buffer source, long byteCount) throws IOException
+				{
+					super.write(source, byteCount);
+					bytesOut.addAndGet(byteCount);
+				}
+			});
+
+			delegate.writeTo(countingSink);
+
+			// A body that closed its sink has already pushed everything through; emitting it again would throw
+			if (countingSink.isOpen())
+			{
+				countingSink.emit();
+			}
+		}
+	}
+
+	private static class CountingResponseBody extends ResponseBody
+	{
+		private final ResponseBody delegate;
+
+		private final BufferedSource source;
+
+		CountingResponseBody(ResponseBody delegate, AtomicLong bytesIn)
+		{
+			this.delegate = delegate;
+			this.source = Okio.buffer(new ForwardingSource(delegate.source())
+			{
+				@Override
+				public long read(@NotNull Buffer sink, long byteCount) throws IOException
+				{
+					final long read = super.read(sink, byteCount);
+
+					if (read > 0)
+					{
+						bytesIn.addAndGet(read);
+					}
+
+					return read;
+				}
+			});
+		}
+
+		@Nullable
+		@Override
+		public MediaType contentType()
+		{
+			return delegate.contentType();
+		}
+
+		@Override
+		public long contentLength()
+		{
+			return delegate.contentLength();
+		}
+
+		@NotNull
+		@Override
+		public BufferedSource source()
+		{
+			return source;
+		}
+	}
+}
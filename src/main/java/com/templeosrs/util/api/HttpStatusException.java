@@ -0,0 +1,21 @@
+package com.templeosrs.util.api;
+
+import java.io.IOException;
+import lombok.Getter;
+
+/**
+ * Thrown when the server answers with a non-2xx status.
+ */
+public class HttpStatusException extends IOException
+{
+	private static final long serialVersionUID = 1L;
+
+	@Getter
+	private final int code;
+
+	public HttpStatusException(String message, int code)
+	{
+		super(message);
+		this.code = code;
+	}
+}
@@ -2,90 +2,224 @@ package com.templeosrs.util.api;
 
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import static net.runelite.http.api.RuneLiteAPI.JSON;
 import okhttp3.HttpUrl;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 @Slf4j
 public class RequestManager
 {
-	protected final String scheme = "https";
-	
-	protected final String host = "templeosrs.com";
+	/**
+	 * Consumes a response body as it is downloaded.
+	 */
+	@FunctionalInterface
+	protected interface ResponseReader<T>
+	{
+		T read(Reader body) throws IOException;
+	}
 
 	@Inject
-	OkHttpClient okHttpClient;
+	protected TempleApi api;
+
+	@Inject
+	TempleHttpClient httpClient;
 
 	@Inject
 	private Gson gson;
 
-	private Request.Builder buildRequest(@NotNull HttpUrl url)
-	{
-		String PLUGIN_USER_AGENT = "TempleOSRS RuneLite Plugin Collection Log Sync - For any issues/abuse Contact 44mikael on Discord (https://www.templeosrs.com)";
+	@Inject
+	private HttpMetrics metrics;
 
+	/**
+	 * Whether each endpoint reads gzipped bodies: true once it has accepted one, false once it has failed to
+	 */
+	private final Map<String, Boolean> gzipSupport = new ConcurrentHashMap<>();
+
+	private Request.Builder buildRequest(@NotNull HttpUrl url, @NotNull RequestPriority priority)
+	{
 		return new Request.Builder()
-			.addHeader("User-Agent", PLUGIN_USER_AGENT)
+			.tag(RequestPriority.class, priority)
 			.url(url);
 	}
 
 	/**
-	 * Initiates a synchronous request with no timeout.
+	 * Sends the request with the priority it was built with.
+	 *
+	 * @see TempleHttpClient#execute
+	 */
+	private <T> CompletableFuture<T> execute(Request request, TempleHttpClient.ResponseBodyReader<T> reader)
+	{
+		return httpClient.execute(request, Objects.requireNonNull(request.tag(RequestPriority.class)), reader);
+	}
+
+	/**
+	 * Initiates a request, failing if the response body is empty.
 	 *
 	 * @param request The request to be sent.
 	 * @return The request data.
-	 * @throws IOException The request error.
 	 */
-	private String doRequest(Request request) throws IOException
+	private CompletableFuture<String> doRequest(Request request)
 	{
-		try (Response response = okHttpClient.newCall(request).execute())
-		{
-			if (!response.isSuccessful())
+		return execute(request, body -> {
+			String response = body.string();
+
+			if (response.isEmpty())
 			{
-				throw new IOException(String.format("HTTP error fetching %s: %s", request.url(), response.code()));
+				throw new IOException(String.format("Empty response body was returned from %s", request.url()));
 			}
 
-			String body = Objects.requireNonNull(response.body()).string();
+			return response;
+		});
+	}
 
-			if (body.isEmpty())
+	/**
+	 * Initiates a request, handing the body to the reader while it is downloaded instead of reading it into memory
+	 * first.
+	 *
+	 * @param request        The request to be sent.
+	 * @param responseReader Reads the response body.
+	 * @return The reader's result.
+	 */
+	private <T> CompletableFuture<T> doRequest(Request request, ResponseReader<T> responseReader)
+	{
+		return execute(request, body -> {
+			if (body.contentLength() == 0)
 			{
 				throw new IOException(String.format("Empty response body was returned from %s", request.url()));
 			}
 
-			return body;
-		}
+			return responseReader.read(body.charStream());
+		});
 	}
 
 	/**
-	 * Initiates a synchronous GET request.
+	 * Initiates a GET request.
 	 *
-	 * @param url The URL to send the request to.
+	 * @param url      The URL to send the request to.
+	 * @param priority The request's place in the rate limiter's queue.
 	 */
-	protected String get(@NotNull HttpUrl url) throws IOException
+	protected CompletableFuture<String> get(@NotNull HttpUrl url, @NotNull RequestPriority priority)
 	{
-		final Request request = buildRequest(url).get().build();
+		final Request request = buildRequest(url, priority).get().build();
 
 		return doRequest(request);
 	}
 
 	/**
-	 * Initiates a synchronous POST request with the given data.
+	 * Initiates a GET request, streaming the response body to the given reader on OkHttp's dispatcher thread.
+	 *
+	 * @param url            The URL to send the request to.
+	 * @param priority       The request's place in the rate limiter's queue.
+	 * @param responseReader Reads the response body.
+	 */
+	protected <T> CompletableFuture<T> get(@NotNull HttpUrl url, @NotNull RequestPriority priority, @NotNull ResponseReader<T> responseReader)
+	{
+		final Request request = buildRequest(url, priority).get().build();
+
+		return doRequest(request, responseReader);
+	}
+
+	/**
+	 * Initiates a POST request with the given data.
+	 * POST requests are uploads, so they are sent with {@link RequestPriority#UPLOAD}.
 	 *
 	 * @param url  The URL to send the request to.
 	 * @param data The data to be sent in the request body.
 	 */
-	protected String post(@NotNull HttpUrl url, @NotNull Object data) throws IOException
+	protected CompletableFuture<String> post(@NotNull HttpUrl url, @NotNull Object data)
 	{
-		final Request request = buildRequest(url)
+		final Request request = buildRequest(url, RequestPriority.UPLOAD)
 			.post(RequestBody.create(JSON, gson.toJson(data)))
 			.build();
 
 		return doRequest(request);
 	}
+
+	/**
+	 * Initiates a POST request with the given data gzipped, unless the endpoint is known not to read gzipped bodies.
+	 * <p>
+	 * Until an endpoint has accepted a gzipped body, a 400 or 415, or a response the validator doesn't accept, is taken
+	 * as the endpoint failing to decode it. The data is then sent again uncompressed, and so is everything sent to the
+	 * endpoint from then on.
+	 *
+	 * @param url      The URL to send the request to.
+	 * @param data     The data to be sent in the request body.
+	 * @param accepted Whether a response shows the server read the body, e.g. that it holds no error.
+	 */
+	protected CompletableFuture<String> postCompressed(@NotNull HttpUrl url, @NotNull Object data, @NotNull Predicate<String> accepted)
+	{
+		final String endpoint = url.encodedPath();
+		final Boolean readsGzip = gzipSupport.get(endpoint);
+
+		if (readsGzip != null && !readsGzip)
+		{
+			return post(url, data);
+		}
+
+		final Request request = buildRequest(url, RequestPriority.UPLOAD)
+			.header("Content-Encoding", "gzip")
+			.post(new GzipJsonRequestBody(gson, data))
+			.build();
+
+		return doRequest(request).handle((response, e) -> {
+			if (e == null)
+			{
+				if (readsGzip != null || accepted.test(response))
+				{
+					gzipSupport.put(endpoint, true);
+
+					return CompletableFuture.completedFuture(response);
+				}
+
+				log.warn("⚠️ {} did not accept a compressed request; retrying uncompressed", endpoint);
+			}
+			else
+			{
+				final int code = e instanceof HttpStatusException ? ((HttpStatusException) e).getCode() : 0;
+
+				if (readsGzip != null || (code != 400 && code != 415))
+				{
+					return RequestManager.<String>failedFuture(e);
+				}
+
+				log.warn("⚠️ {} rejected a compressed request ({}); retrying uncompressed", endpoint, code);
+			}
+
+			gzipSupport.put(endpoint, false);
+			metrics.recordRetry(url);
+
+			return post(url, data);
+		}).thenCompose(Function.identity());
+	}
+
+	/**
+	 * @return The exception a request failed with, without the {@link CompletionException} that dependent stages wrap
+	 * it in, or null if it didn't fail
+	 */
+	@Nullable
+	public static Throwable unwrap(@Nullable Throwable e)
+	{
+		return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+	}
+
+	private static <T> CompletableFuture<T> failedFuture(Throwable e)
+	{
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(e);
+
+		return future;
+	}
 }
@@ -0,0 +1,27 @@
+package com.templeosrs.util.api;
+
+/**
+ * Which requests {@link RequestRateLimiter} lets through first when the request rate is exceeded, highest first.
+ */
+public enum RequestPriority
+{
+	/**
+	 * Collection log and clan member uploads, which are lost or have to be redone if they are held up
+	 */
+	UPLOAD,
+
+	/**
+	 * Lookups and updates for the logged-in player, e.g. the auto-sync timestamp check
+	 */
+	LOCAL_PLAYER,
+
+	/**
+	 * Side panel and chat command lookups of other players, clans and competitions
+	 */
+	LOOKUP,
+
+	/**
+	 * Background refreshes nobody is waiting on yet
+	 */
+	SPECULATIVE
+}
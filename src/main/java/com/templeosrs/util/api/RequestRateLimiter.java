@@ -0,0 +1,249 @@
+package com.templeosrs.util.api;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps the plugin's requests to TempleOSRS within a polite rate, shared by every endpoint.
+ * <p>
+ * A token bucket allows short bursts and then one request per refill interval. When no token is left, requests
+ * wait in a queue ordered by {@link RequestPriority}, so a burst of {@code !col} lookups can't hold up an upload.
+ */
+@Slf4j
+@Singleton
+public class RequestRateLimiter
+{
+	private static final double PERMITS_PER_SECOND = 3;
+
+	private static final int MAX_BURST = 6;
+
+	private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+
+	private final Map<RequestPriority, PriorityStats> stats = new EnumMap<>(RequestPriority.class);
+
+	@Nullable
+	private ScheduledExecutorService timer;
+
+	private double tokens = MAX_BURST;
+
+	private long lastRefillNanos = System.nanoTime();
+
+	private long sequence;
+
+	private boolean drainScheduled;
+
+	public RequestRateLimiter()
+	{
+		for (RequestPriority priority : RequestPriority.values())
+		{
+			stats.put(priority, new PriorityStats());
+		}
+	}
+
+	/**
+	 * Reserves a request slot.
+	 *
+	 * @param priority How urgent the request is
+	 * @return Completes once the request may be sent; cancel it to give up the place in the queue
+	 */
+	public CompletableFuture<Void> acquire(RequestPriority priority)
+	{
+		final Waiter waiter = new Waiter(priority);
+
+		synchronized (this)
+		{
+			waiter.sequence = sequence++;
+			waiters.add(waiter);
+			stats.get(priority).queued++;
+		}
+
+		drain();
+
+		return waiter.future;
+	}
+
+	/**
+	 * Cancels every waiting request and stops the refill timer. The requests' futures fail with a
+	 * {@link CancellationException}, so their callers drop them instead of sending them.
+	 */
+	public void shutDown()
+	{
+		final List<Waiter> cancelled;
+
+		synchronized (this)
+		{
+			cancelled = new ArrayList<>(waiters);
+			waiters.clear();
+
+			if (timer != null)
+			{
+				timer.shutdownNow();
+				timer = null;
+			}
+
+			drainScheduled = false;
+		}
+
+		cancelled.forEach(waiter -> waiter.future.completeExceptionally(new CancellationException("The rate limiter was shut down")));
+
+		log.debug("🚦 Request queue stats: {}", getStats());
+	}
+
+	/**
+	 * @return A snapshot of how long each priority has waited for a request slot
+	 */
+	public synchronized Map<RequestPriority, QueueStats> getStats()
+	{
+		final Map<RequestPriority, QueueStats> snapshot = new EnumMap<>(RequestPriority.class);
+		final Map<RequestPriority, Integer> waiting = new EnumMap<>(RequestPriority.class);
+
+		for (Waiter waiter : waiters)
+		{
+			waiting.merge(waiter.priority, 1, Integer::sum);
+		}
+
+		stats.forEach((priority, priorityStats) -> snapshot.put(priority, new QueueStats(
+			priorityStats.queued,
+			priorityStats.granted,
+			waiting.getOrDefault(priority, 0),
+			priorityStats.granted == 0 ? 0 : priorityStats.totalWaitNanos / priorityStats.granted / 1_000_000,
+			priorityStats.maxWaitNanos / 1_000_000
+		)));
+
+		return snapshot;
+	}
+
+	private void drain()
+	{
+		final List<Waiter> granted = new ArrayList<>();
+
+		synchronized (this)
+		{
+			final long now = System.nanoTime();
+
+			tokens = Math.min(MAX_BURST, tokens + (now - lastRefillNanos) / 1e9 * PERMITS_PER_SECOND);
+			lastRefillNanos = now;
+
+			while (!waiters.isEmpty() && tokens >= 1)
+			{
+				final Waiter waiter = waiters.poll();
+
+				// Cancelled while it was waiting
+				if (waiter.future.isDone())
+				{
+					continue;
+				}
+
+				final long waitNanos = now - waiter.queuedNanos;
+				final PriorityStats priorityStats = stats.get(waiter.priority);
+
+				priorityStats.granted++;
+				priorityStats.totalWaitNanos += waitNanos;
+				priorityStats.maxWaitNanos = Math.max(priorityStats.maxWaitNanos, waitNanos);
+
+				tokens--;
+				granted.add(waiter);
+			}
+
+			if (!waiters.isEmpty() && !drainScheduled)
+			{
+				final long delayNanos = (long) ((1 - tokens) / PERMITS_PER_SECOND * 1e9);
+
+				drainScheduled = true;
+				getTimer().schedule(this::scheduledDrain, delayNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		// Completed outside the lock, since the requests may be sent straight from these callbacks
+		granted.forEach(waiter -> waiter.future.complete(null));
+	}
+
+	private void scheduledDrain()
+	{
+		synchronized (this)
+		{
+			drainScheduled = false;
+		}
+
+		drain();
+	}
+
+	/**
+	 * The limiter keeps its own timer thread, so granting a request never waits for a busy shared executor.
+	 */
+	private ScheduledExecutorService getTimer()
+	{
+		if (timer == null)
+		{
+			timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "TempleOSRS Request Rate Limiter");
+				thread.setDaemon(true);
+
+				return thread;
+			});
+		}
+
+		return timer;
+	}
+
+	@Value
+	public static class QueueStats
+	{
+		long queued;
+
+		long granted;
+
+		int waiting;
+
+		long averageWaitMillis;
+
+		long maxWaitMillis;
+	}
+
+	private static class PriorityStats
+	{
+		private long queued;
+
+		private long granted;
+
+		private long totalWaitNanos;
+
+		private long maxWaitNanos;
+	}
+
+	private static class Waiter implements Comparable<Waiter>
+	{
+		private final RequestPriority priority;
+
+		private final long queuedNanos = System.nanoTime();
+
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private long sequence;
+
+		Waiter(RequestPriority priority)
+		{
+			this.priority = priority;
+		}
+
+		@Override
+		public int compareTo(Waiter other)
+		{
+			final int byPriority = priority.compareTo(other.priority);
+
+			return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+		}
+	}
+}
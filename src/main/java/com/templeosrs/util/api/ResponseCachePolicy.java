@@ -0,0 +1,90 @@
+package com.templeosrs.util.api;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decides how long each TempleOSRS endpoint's responses may be reused before they are downloaded again.
+ * <p>
+ * The API doesn't send caching headers of its own, so this network interceptor rewrites {@code Cache-Control} on
+ * successful GET responses. It doesn't send an {@code ETag} or {@code Last-Modified} either, so a response can't be
+ * revalidated; once it is older than its TTL, the next request downloads it in full.
+ */
+public class ResponseCachePolicy implements Interceptor
+{
+	/**
+	 * Path prefixes mapped to how long their responses stay fresh, checked in order
+	 */
+	private static final Map<String, Long> TTL_SECONDS_BY_PATH = new LinkedHashMap<>();
+
+	static
+	{
+		// Rarely changes between lookups
+		TTL_SECONDS_BY_PATH.put("/api/group_info.php", TimeUnit.MINUTES.toSeconds(10));
+		TTL_SECONDS_BY_PATH.put("/api/group_achievements.php", TimeUnit.MINUTES.toSeconds(5));
+	}
+
+	/**
+	 * Requests that must never be answered from the cache
+	 */
+	private static final String[] UNCACHEABLE_PATHS = {
+		// Records something on the server
+		"/php/add_datapoint.php",
+		// Decide whether a log needs syncing, so they must always be current; with nothing to revalidate against,
+		// a cached copy would only take up disk space. Player info is kept briefly in memory instead
+		"/api/player_info.php",
+		"/api/collection-log/player_collection_log.php",
+		// Live gains, which players refresh to see what they have just gained; a forced TTL would show stale numbers
+		"/api/current_top/",
+		"/api/competition_info.php",
+		"/player/view/overview_skilling_view.php",
+	};
+
+	@NotNull
+	@Override
+	public Response intercept(@NotNull Chain chain) throws IOException
+	{
+		final Request request = chain.request();
+		final Response response = chain.proceed(request);
+
+		if (!"GET".equals(request.method()) || !response.isSuccessful())
+		{
+			return response;
+		}
+
+		final String path = request.url().encodedPath();
+
+		for (String uncacheablePath : UNCACHEABLE_PATHS)
+		{
+			if (path.startsWith(uncacheablePath))
+			{
+				return withCacheControl(response, "no-store");
+			}
+		}
+
+		for (Map.Entry<String, Long> policy : TTL_SECONDS_BY_PATH.entrySet())
+		{
+			if (path.startsWith(policy.getKey()))
+			{
+				return withCacheControl(response, "public, max-age=" + policy.getValue());
+			}
+		}
+
+		return response;
+	}
+
+	private static Response withCacheControl(Response response, String cacheControl)
+	{
+		return response.newBuilder()
+			.removeHeader("Pragma")
+			.removeHeader("Expires")
+			.header("Cache-Control", cacheControl)
+			.build();
+	}
+}
@@ -0,0 +1,66 @@
+package com.templeosrs.util.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shares one in-flight call between concurrent callers asking for the same key.
+ * <p>
+ * The first caller starts the call; anyone asking for the same key before it finishes gets that call's future
+ * instead of starting another call. Nothing is kept once the call finishes.
+ *
+ * @param <K> The key identifying the resource
+ * @param <V> The result of the call
+ */
+@Slf4j
+public class SingleFlight<K, V>
+{
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts the call, or joins the identical call already in flight.
+	 *
+	 * @param key  The key identifying the resource
+	 * @param call Starts the call if none is in flight for the key
+	 * @return The shared call's result; it is shared with every caller, so don't cancel it
+	 */
+	public CompletableFuture<V> share(K key, Supplier<CompletableFuture<V>> call)
+	{
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+		if (existing != null)
+		{
+			log.debug("🔗 Joining in-flight request for {}", key);
+
+			return existing;
+		}
+
+		try
+		{
+			call.get().whenComplete((result, e) -> {
+				// Removed first, so a caller reacting to the result starts a fresh call
+				inFlight.remove(key, future);
+
+				if (e != null)
+				{
+					future.completeExceptionally(e);
+				}
+				else
+				{
+					future.complete(result);
+				}
+			});
+		}
+		catch (RuntimeException | Error e)
+		{
+			inFlight.remove(key, future);
+			future.completeExceptionally(e);
+		}
+
+		return future;
+	}
+}
@@ -0,0 +1,45 @@
+package com.templeosrs.util.api;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Getter;
+import okhttp3.HttpUrl;
+
+/**
+ * Where TempleOSRS API requests are sent.
+ * <p>
+ * Defaults to https://templeosrs.com. To develop or test against a local stand-in server, start the client with
+ * {@code -Dtempleosrs.api.base=http://localhost:8080/} or bind a different instance.
+ */
+@Singleton
+public class TempleApi
+{
+	public static final String BASE_URL_PROPERTY = "templeosrs.api.base";
+
+	public static final HttpUrl DEFAULT_BASE_URL = HttpUrl.get("https://templeosrs.com/");
+
+	@Getter
+	private final HttpUrl baseUrl;
+
+	@Inject
+	public TempleApi()
+	{
+		this(HttpUrl.get(System.getProperty(BASE_URL_PROPERTY, DEFAULT_BASE_URL.toString())));
+	}
+
+	/**
+	 * @param baseUrl The URL the API paths are appended to
+	 */
+	public TempleApi(HttpUrl baseUrl)
+	{
+		this.baseUrl = baseUrl;
+	}
+
+	/**
+	 * @return A builder for an API URL, to add the endpoint's path segments and query parameters to
+	 */
+	public HttpUrl.Builder newUrlBuilder()
+	{
+		return baseUrl.newBuilder();
+	}
+}
@@ -0,0 +1,142 @@
+package com.templeosrs.util.api;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The worker threads shared by every TempleOSRS network call and the parsing of its response.
+ * <p>
+ * The pool has a fixed number of threads and a bounded queue, so however fast lookups are fired the plugin never
+ * holds more than {@value #MAX_THREADS} threads. Idle threads exit after {@value #KEEP_ALIVE_SECONDS} seconds.
+ * Work submitted once the queue is full is rejected, which OkHttp reports as a failed call.
+ */
+@Slf4j
+@Singleton
+public class TempleExecutor
+{
+	private static final int MAX_THREADS = 4;
+
+	private static final int MAX_QUEUED_TASKS = 128;
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private final AtomicLong rejectedTasks = new AtomicLong();
+
+	private final AtomicInteger peakQueuedTasks = new AtomicInteger();
+
+	@Nullable
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * @return The pool, started again if it has been shut down
+	 */
+	public synchronized ExecutorService getExecutorService()
+	{
+		if (executor == null)
+		{
+			executor = new ThreadPoolExecutor(
+				MAX_THREADS,
+				MAX_THREADS,
+				KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(MAX_QUEUED_TASKS),
+				threadFactory(),
+				(task, pool) -> {
+					rejectedTasks.incrementAndGet();
+
+					log.warn("🧵 TempleOSRS work queue is full ({} tasks); rejecting task", pool.getQueue().size());
+
+					throw new RejectedExecutionException("TempleOSRS work queue is full");
+				}
+			)
+			{
+				@Override
+				public void execute(@NotNull Runnable command)
+				{
+					super.execute(command);
+
+					peakQueuedTasks.accumulateAndGet(getQueue().size(), Math::max);
+				}
+			};
+
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		return executor;
+	}
+
+	/**
+	 * Stops the pool, letting tasks that are already running finish.
+	 */
+	public synchronized void shutDown()
+	{
+		if (executor == null)
+		{
+			return;
+		}
+
+		log.debug("🧵 TempleOSRS worker stats: {}", getStats());
+
+		executor.shutdown();
+		executor = null;
+	}
+
+	/**
+	 * @return A snapshot of the pool's load
+	 */
+	public synchronized ExecutorStats getStats()
+	{
+		if (executor == null)
+		{
+			return new ExecutorStats(0, 0, 0, peakQueuedTasks.get(), 0, rejectedTasks.get());
+		}
+
+		return new ExecutorStats(
+			executor.getPoolSize(),
+			executor.getActiveCount(),
+			executor.getQueue().size(),
+			peakQueuedTasks.get(),
+			executor.getCompletedTaskCount(),
+			rejectedTasks.get()
+		);
+	}
+
+	private static ThreadFactory threadFactory()
+	{
+		final AtomicInteger threadNumber = new AtomicInteger();
+
+		return runnable -> {
+			final Thread thread = new Thread(runnable, "TempleOSRS Worker #" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		};
+	}
+
+	@Value
+	public static class ExecutorStats
+	{
+		int threads;
+
+		int activeTasks;
+
+		int queuedTasks;
+
+		int peakQueuedTasks;
+
+		long completedTasks;
+
+		long rejectedTasks;
+	}
+}
@@ -0,0 +1,247 @@
+package com.templeosrs.util.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The HTTP client shared by every TempleOSRS request.
+ * <p>
+ * It is built from RuneLite's client, so it shares the same connection pool, but runs its calls on
+ * {@link TempleExecutor}'s bounded pool and keeps its own on-disk response cache so reopening a player, clan or
+ * competition (even after a restart) is served locally instead of downloaded again.
+ * See {@link ResponseCachePolicy} for how long responses are kept, and {@link HttpMetrics} for how calls are measured.
+ * <p>
+ * Requests are sent with {@link #execute}, which every caller shares so they are all rate limited, timed out and
+ * reported to the circuit breakers the same way.
+ */
+@Slf4j
+@Singleton
+public class TempleHttpClient
+{
+	private static final String CACHE_DIRECTORY_NAME = "http-cache";
+
+	private static final long MAX_CACHE_SIZE_BYTES = 20 * 1024 * 1024;
+
+	/**
+	 * Upper bound for a whole call, including connecting, redirects and reading the body
+	 */
+	private static final long CALL_TIMEOUT_SECONDS = 30;
+
+	private static final String USER_AGENT = "TempleOSRS RuneLite Plugin Collection Log Sync - For any issues/abuse Contact 44mikael on Discord (https://www.templeosrs.com)";
+
+	/**
+	 * Reads a successful response's body.
+	 */
+	@FunctionalInterface
+	public interface ResponseBodyReader<T>
+	{
+		T read(ResponseBody body) throws IOException;
+	}
+
+	@Inject
+	private OkHttpClient okHttpClient;
+
+	@Inject
+	private TempleExecutor executor;
+
+	@Inject
+	private HttpMetrics metrics;
+
+	@Inject
+	private RequestRateLimiter rateLimiter;
+
+	@Inject
+	private CircuitBreakers circuitBreakers;
+
+	private final File directory;
+
+	@Nullable
+	private OkHttpClient client;
+
+	@Nullable
+	private Cache cache;
+
+	@Inject
+	public TempleHttpClient()
+	{
+		this(new File(RuneLite.RUNELITE_DIR, "templeosrs"));
+	}
+
+	/**
+	 * @param directory The plugin directory that holds the cache directory
+	 */
+	public TempleHttpClient(File directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * @return The client to send TempleOSRS requests with
+	 */
+	public synchronized OkHttpClient getClient()
+	{
+		if (client == null)
+		{
+			cache = new Cache(new File(directory, CACHE_DIRECTORY_NAME), MAX_CACHE_SIZE_BYTES);
+
+			client = okHttpClient.newBuilder()
+				.dispatcher(new Dispatcher(executor.getExecutorService()))
+				.cache(cache)
+				.addInterceptor(metrics.callInterceptor())
+				.addNetworkInterceptor(new ResponseCachePolicy())
+				.addNetworkInterceptor(metrics.networkInterceptor())
+				.build();
+		}
+
+		return client;
+	}
+
+	/**
+	 * Sends the request on the dispatcher once the rate limiter lets it through, without blocking the calling thread.
+	 * Fails straight away if the endpoint's circuit is open, and with an {@link HttpStatusException} if the response
+	 * isn't successful. The whole call is limited to {@value #CALL_TIMEOUT_SECONDS} seconds.
+	 * <p>
+	 * Cancelling the returned future cancels the call, or gives up its place in the rate limiter's queue if it hasn't
+	 * been sent yet.
+	 *
+	 * @param request  The request to send
+	 * @param priority The request's place in the rate limiter's queue
+	 * @param reader   Reads a successful response's body, on the dispatcher thread
+	 * @return The reader's result
+	 */
+	public <T> CompletableFuture<T> execute(Request request, RequestPriority priority, ResponseBodyReader<T> reader)
+	{
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		final String endpoint = request.url().encodedPath();
+
+		try
+		{
+			circuitBreakers.checkAllowed(endpoint);
+		}
+		catch (CircuitBreakers.CircuitOpenException e)
+		{
+			future.completeExceptionally(e);
+			return future;
+		}
+
+		final Call call = getClient().newCall(request.newBuilder().header("User-Agent", USER_AGENT).build());
+		call.timeout().timeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+		final CompletableFuture<Void> permit = rateLimiter.acquire(priority);
+
+		future.whenComplete((result, e) -> {
+			if (future.isCancelled())
+			{
+				permit.cancel(false);
+				call.cancel();
+			}
+		});
+
+		permit.whenComplete((ignored, e) -> {
+			if (e != null)
+			{
+				future.cancel(false);
+			}
+			else if (!future.isDone())
+			{
+				call.enqueue(callback(endpoint, reader, future));
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Completes the future with the reader's result, or the call's failure, and reports the outcome to the endpoint's
+	 * circuit breaker.
+	 */
+	private <T> Callback callback(String endpoint, ResponseBodyReader<T> reader, CompletableFuture<T> future)
+	{
+		return new Callback()
+		{
+			@Override
+			public void onFailure(@NotNull Call call, @NotNull IOException e)
+			{
+				// A cancelled call says nothing about the endpoint
+				if (!call.isCanceled())
+				{
+					circuitBreakers.recordFailure(endpoint);
+				}
+
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(@NotNull Call call, @NotNull Response response)
+			{
+				if (CircuitBreakers.isFailure(response.code()))
+				{
+					circuitBreakers.recordFailure(endpoint);
+				}
+				else
+				{
+					circuitBreakers.recordSuccess(endpoint);
+				}
+
+				try (ResponseBody body = Objects.requireNonNull(response.body()))
+				{
+					if (!response.isSuccessful())
+					{
+						throw new HttpStatusException(String.format("HTTP error fetching %s: %s", call.request().url(), response.code()), response.code());
+					}
+
+					future.complete(reader.read(body));
+				}
+				catch (IOException | RuntimeException e)
+				{
+					future.completeExceptionally(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Closes the response cache. The client is rebuilt if it is needed again.
+	 */
+	public synchronized void shutDown()
+	{
+		if (cache == null)
+		{
+			return;
+		}
+
+		try
+		{
+			log.debug("💾 HTTP cache: {} requests, {} network, {} hits", cache.requestCount(), cache.networkCount(), cache.hitCount());
+			metrics.logSummary();
+
+			cache.close();
+		}
+		catch (IOException e)
+		{
+			log.warn("Error closing the HTTP cache: {}", e.getMessage());
+		}
+		finally
+		{
+			cache = null;
+			client = null;
+		}
+	}
+}
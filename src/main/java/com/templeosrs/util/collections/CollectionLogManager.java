@@ -26,21 +26,25 @@ package com.templeosrs.util.collections;
 
 import com.templeosrs.TempleOSRSConfig;
 import com.templeosrs.TempleOSRSPlugin;
-import com.templeosrs.util.api.QuadraticBackoffStrategy;
+import com.templeosrs.util.api.ExponentialBackoffStrategy;
+import com.templeosrs.util.api.RequestManager;
+import com.templeosrs.util.api.RequestPriority;
 import com.templeosrs.util.collections.autosync.CollectionLogAutoSyncManager;
 import com.templeosrs.util.collections.chatcommands.CollectionLogChatCommandChatMessageSubscriber;
 import com.templeosrs.util.collections.data.ObtainedCollectionItem;
 import com.templeosrs.util.collections.data.PlayerData;
 import com.templeosrs.util.collections.data.PlayerDataSubmission;
 import com.templeosrs.util.collections.data.PlayerProfile;
-import com.templeosrs.util.collections.database.CollectionDatabase;
+import com.templeosrs.util.collections.database.CollectionLogEvictionManager;
+import com.templeosrs.util.collections.database.CollectionStore;
 import com.templeosrs.util.collections.services.CollectionLogService;
 import com.templeosrs.util.collections.utils.CollectionLogCacheData;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
@@ -94,7 +98,7 @@ public class CollectionLogManager
 	/**
 	 * List of items found in the collection log, computed by reading the in-game enums/structs.
 	 */
-	private final Set<Integer> collectionLogItemsFromCache = new HashSet<>();
+	private final Set<Integer> collectionLogItemsFromCache = new LinkedHashSet<>();
 
 	/**
 	 * Unique list of all obtained collection log items
@@ -103,7 +107,8 @@ public class CollectionLogManager
 	private final Set<ObtainedCollectionItem> obtainedCollectionLogItems = new HashSet<>();
 
 	@Getter
-	private final QuadraticBackoffStrategy backoffStrategy = new QuadraticBackoffStrategy();
+	@Inject
+	private ExponentialBackoffStrategy backoffStrategy;
 
 	@Inject
 	private ItemManager itemManager;
@@ -143,6 +148,12 @@ public class CollectionLogManager
 	@Inject
 	private CollectionLogRequestManager collectionLogRequestManager;
 
+	@Inject
+	private CollectionStore collectionStore;
+
+	@Inject
+	private CollectionLogEvictionManager collectionLogEvictionManager;
+
 	@Nullable
 	private Integer gameTickToSync;
 
@@ -150,7 +161,8 @@ public class CollectionLogManager
 	{
 		eventBus.register(this);
 
-		CollectionDatabase.init();
+		collectionStore.startUp();
+		collectionLogEvictionManager.startUp();
 
 		if (templeOSRSPlugin.getConfig().enableClogChatCommand())
 		{
@@ -175,6 +187,9 @@ public class CollectionLogManager
 			collectionLogCategoryStructIdMap.putAll(collectionLogCacheData.getCategoryStructIds());
 			collectionLogCategoryTabSlugs.putAll(collectionLogCacheData.getCategorySlugs());
 
+			final List<Integer> itemOrder = new ArrayList<>(collectionLogCacheData.getItemIds());
+			collectionStore.executeWhenReady(scheduledExecutorService, () -> collectionStore.setItemOrder(itemOrder));
+
 			return true;
 		});
 	}
@@ -195,6 +210,9 @@ public class CollectionLogManager
 
 		syncButtonManager.shutDown();
 
+		collectionLogEvictionManager.shutDown();
+		collectionStore.shutDown();
+
 		obtainedCollectionLogItems.clear();
 		collectionLogItemsFromCache.clear();
 		collectionLogCategoryItemMap.clear();
@@ -231,7 +249,11 @@ public class CollectionLogManager
 		if (!backoffStrategy.isSubmitting() && gameTickToSync != null && client.getTickCount() >= gameTickToSync)
 		{
 			backoffStrategy.setSubmitting(true);
-			scheduledExecutorService.execute(this::submitTask);
+			collectionStore.executeWhenReady(scheduledExecutorService, this::submitTask, () -> {
+				// Without the local cache there is nothing to sync from; it is tried again on the next login
+				gameTickToSync = null;
+				backoffStrategy.finishCycle();
+			});
 		}
 	}
 
@@ -253,38 +275,35 @@ public class CollectionLogManager
 				clientThread.invokeLater(() -> {
 					final String username = client.getLocalPlayer().getName();
 
-					// Wait for username to be available
-					if (username == null)
+					// Wait for username to be available, and for the local cache to open
+					if (username == null || !collectionStore.isReady())
 					{
 						return false;
 					}
 
-					try
-					{
-						String lastChanged = collectionLogRequestManager
-							.getPlayerInfo(username)
-							.getCollectionLog()
-							.getLastChanged();
+					// Looking up the player may wait on the rate limiter, so only its callback runs on the shared executor
+					collectionLogRequestManager.getPlayerInfo(username, RequestPriority.LOCAL_PLAYER).whenCompleteAsync((playerInfo, e) -> {
+						// If an error occurs then skip the sync; it is tried again on the next login
+						if (e != null)
+						{
+							return;
+						}
 
+						String lastChanged = playerInfo.getCollectionLog().getLastChanged();
 
 						// Skip sync if the player's collection log doesn't exist, or has already been saved and is up-to-date
 						if (
 							lastChanged == null ||
-								(collectionLogService.isDataFresh(username, lastChanged) && CollectionDatabase.hasPlayerData(username))
+								(collectionLogService.isDataFresh(username, lastChanged) && collectionStore.hasPlayerData(username))
 						)
 						{
-							return true;
+							return;
 						}
 
 						collectionLogService.syncCollectionLog();
+					}, scheduledExecutorService);
 
-						return true;
-					}
-					catch (NullPointerException | IOException e)
-					{
-						// If an error occurs then bail early to avoid infinite retries
-						return true;
-					}
+					return true;
 				});
 			}
 		}
@@ -335,7 +354,7 @@ public class CollectionLogManager
 
 		String username = client.getLocalPlayer().getName();
 
-		final boolean hasPlayerData = CollectionDatabase.hasPlayerData(username);
+		final boolean hasPlayerData = collectionStore.hasPlayerData(username);
 
 		if (hasPlayerData && !syncButtonManager.isFullSyncRequested())
 		{
@@ -384,22 +403,22 @@ public class CollectionLogManager
 			playerData
 		);
 
-		try
-		{
-			requestManager.uploadFullCollectionLog(submission);
-			syncButtonManager.setFullSyncRequested(false);
-			gameTickToSync = null;
+		requestManager.uploadFullCollectionLog(submission).whenComplete((ignored, e) -> {
+			if (e == null)
+			{
+				syncButtonManager.setFullSyncRequested(false);
+				gameTickToSync = null;
+				backoffStrategy.reset();
+
+				log.debug("Successfully submitted collection log for {}", submission.getUsername());
+			}
+			else
+			{
+				log.error("❌ Failed to upload collection log for {}: {}", submission.getUsername(), RequestManager.unwrap(e).getMessage());
+			}
 
-			log.debug("Successfully submitted collection log for {}", submission.getUsername());
-		}
-		catch (IOException e)
-		{
-			log.error("❌ Failed to upload collection log for {}", submission.getUsername());
-		}
-		finally
-		{
 			backoffStrategy.finishCycle();
-		}
+		});
 	}
 
 	/**
@@ -407,7 +426,8 @@ public class CollectionLogManager
 	 */
 	private CollectionLogCacheData parseCacheForClog()
 	{
-		Set<Integer> items = new HashSet<>();
+		// Kept in log tab order, as this is the canonical order logs are packed with
+		Set<Integer> items = new LinkedHashSet<>();
 		Map<Integer, Set<Integer>> categoryItems = new HashMap<>();
 		Map<String, Integer> categoryStructIds = new HashMap<>();
 		Map<Integer, Set<String>> categorySlugs = new LinkedHashMap<>();
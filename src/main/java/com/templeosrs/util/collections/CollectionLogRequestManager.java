@@ -1,23 +1,81 @@
 package com.templeosrs.util.collections;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.templeosrs.TempleOSRSConfig;
 import com.templeosrs.util.api.APIError;
 import com.templeosrs.util.api.RequestManager;
+import com.templeosrs.util.api.RequestPriority;
+import com.templeosrs.util.api.SingleFlight;
 import com.templeosrs.util.collections.autosync.PlayerDataSync;
+import com.templeosrs.util.collections.data.CollectionLogSyncResponse;
 import com.templeosrs.util.collections.data.PlayerDataSubmission;
 import com.templeosrs.util.collections.data.PlayerInfoResponse;
+import com.templeosrs.util.collections.parser.CollectionParser;
+import com.templeosrs.util.collections.utils.PlayerNameUtils;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.HttpUrl;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Lookups for the same player that overlap (e.g. several clan members typing {@code !col} for them at once) share a
+ * single request, and a single parse and store of the downloaded log.
+ * <p>
+ * Player info is also reused for {@link TempleOSRSConfig#playerInfoCacheSeconds()} after it is fetched, and for a
+ * while longer it is still answered from the cache while a fresh copy is fetched in the background.
+ */
 @Slf4j
+@Singleton
 public class CollectionLogRequestManager extends RequestManager
 {
 	@Inject
 	private Gson gson;
 
+	@Inject
+	private CollectionParser collectionParser;
+
+	@Inject
+	private TempleOSRSConfig config;
+
+	/**
+	 * How long past its TTL a player's info is still answered from the cache while it is refreshed
+	 */
+	private static final long STALE_WHILE_REVALIDATE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final int MAX_CACHED_PLAYER_INFO = 200;
+
+	private final SingleFlight<String, PlayerInfoResponse.Data> playerInfoRequests = new SingleFlight<>();
+
+	/**
+	 * Player info by normalized player name, least recently used first
+	 */
+	private final Map<String, CachedPlayerInfo> playerInfoCache = Collections.synchronizedMap(
+		new LinkedHashMap<String, CachedPlayerInfo>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedPlayerInfo> eldest)
+			{
+				return size() > MAX_CACHED_PLAYER_INFO;
+			}
+		}
+	);
+
+	private final Set<String> revalidatingPlayers = ConcurrentHashMap.newKeySet();
+
+	private final SingleFlight<String, Boolean> collectionLogSyncs = new SingleFlight<>();
+
 	/**
 	 * Uploads newly obtained collection log items to the server.
 	 * Used by the auto-sync feature to automatically synchronise the collection log.
@@ -25,112 +83,250 @@ public class CollectionLogRequestManager extends RequestManager
 	 * @param data The data to be uploaded.
 	 * @return The API response data
 	 */
-	public String uploadObtainedCollectionLogItems(@NotNull PlayerDataSync data) throws IOException
+	public CompletableFuture<String> uploadObtainedCollectionLogItems(@NotNull PlayerDataSync data)
 	{
-		final HttpUrl url = new HttpUrl.Builder()
-			.scheme(scheme)
-			.host(host)
+		final HttpUrl url = api.newUrlBuilder()
 			.addPathSegments("api/collection-log/sync_new_collections.php")
 			.build();
 
-		return post(url, data);
+		return post(url, data).thenApply(response -> {
+			// The player's last changed time has moved on
+			invalidatePlayerInfo(data.getUsername());
+
+			return response;
+		});
 	}
 
 	/**
 	 * Uploads the full collection log to the server.
 	 * Triggered by the Collection Log Sync button.
+	 * The body is gzipped, since a full log is usually well over a thousand items.
 	 *
 	 * @param data The data to be uploaded.
+	 * @return Fails if the upload failed, including when the server answered with an error
 	 */
-	public void uploadFullCollectionLog(@NotNull PlayerDataSubmission data) throws IOException
+	public CompletableFuture<Void> uploadFullCollectionLog(@NotNull PlayerDataSubmission data)
 	{
-		final HttpUrl url = new HttpUrl.Builder()
-			.scheme(scheme)
-			.host(host)
+		final HttpUrl url = api.newUrlBuilder()
 			.addPathSegments("api/collection-log/sync_collection.php")
 			.build();
 
-		post(url, data);
+		return postCompressed(url, data, this::isSyncResponse).thenAccept(response -> {
+			try
+			{
+				parseSyncResponse(response);
+			}
+			catch (IOException e)
+			{
+				throw new CompletionException(e);
+			}
+
+			invalidatePlayerInfo(data.getUsername());
+		});
+	}
+
+	private boolean isSyncResponse(String response)
+	{
+		try
+		{
+			parseSyncResponse(response);
+
+			return true;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
 	}
 
 	/**
-	 * Retrieves player info from the Player Info endpoint
+	 * @return The sync's outcome
+	 * @throws IOException If the server answered with an error, or something that isn't a sync response
+	 */
+	@NotNull
+	private CollectionLogSyncResponse.Data parseSyncResponse(String response) throws IOException
+	{
+		final CollectionLogSyncResponse syncResponse;
+
+		try
+		{
+			syncResponse = gson.fromJson(response, CollectionLogSyncResponse.class);
+		}
+		catch (JsonSyntaxException e)
+		{
+			throw new IOException("Unexpected response format: " + response, e);
+		}
+
+		if (syncResponse == null)
+		{
+			throw new IOException("Unexpected response format: " + response);
+		}
+
+		if (syncResponse.getError() != null)
+		{
+			throw new IOException(String.valueOf(syncResponse.getError()));
+		}
+
+		if (syncResponse.getData() == null)
+		{
+			throw new IOException("Unexpected response format: " + response);
+		}
+
+		return syncResponse.getData();
+	}
+
+	/**
+	 * Retrieves player info from the Player Info endpoint, or the freshness cache if it was fetched recently
 	 *
 	 * @param username The username to check
+	 * @param priority The request's place in the rate limiter's queue
+	 * @return The player's info; fails with a {@link NullPointerException} if the player has no TempleOSRS profile
 	 * @link <a href="https://templeosrs.com/api_doc.php#Player_Information">Player Info API</a>
 	 */
 	@NotNull
-	public PlayerInfoResponse.Data getPlayerInfo(@NotNull String username) throws IOException, NullPointerException
+	public CompletableFuture<PlayerInfoResponse.Data> getPlayerInfo(@NotNull String username, @NotNull RequestPriority priority)
 	{
-		final HttpUrl url = new HttpUrl.Builder()
-			.scheme(scheme)
-			.host(host)
+		final String normalizedUsername = PlayerNameUtils.normalizePlayerName(username);
+		final long ttlMillis = TimeUnit.SECONDS.toMillis(config.playerInfoCacheSeconds());
+		final CachedPlayerInfo cached = ttlMillis > 0 ? playerInfoCache.get(normalizedUsername) : null;
+
+		if (cached != null)
+		{
+			final long age = System.currentTimeMillis() - cached.getFetchedAtMillis();
+
+			if (age < ttlMillis)
+			{
+				return CompletableFuture.completedFuture(cached.getData());
+			}
+
+			if (age < ttlMillis + STALE_WHILE_REVALIDATE_MILLIS)
+			{
+				revalidatePlayerInfo(username, normalizedUsername);
+
+				return CompletableFuture.completedFuture(cached.getData());
+			}
+		}
+
+		return fetchPlayerInfo(username, normalizedUsername, priority);
+	}
+
+	@NotNull
+	private CompletableFuture<PlayerInfoResponse.Data> fetchPlayerInfo(@NotNull String username, @NotNull String normalizedUsername, @NotNull RequestPriority priority)
+	{
+		return playerInfoRequests.share(normalizedUsername, () -> requestPlayerInfo(username, priority).thenApply(data -> {
+			playerInfoCache.put(normalizedUsername, new CachedPlayerInfo(data, System.currentTimeMillis()));
+
+			return data;
+		}));
+	}
+
+	/**
+	 * Refreshes a stale cache entry in the background, once per player at a time.
+	 */
+	private void revalidatePlayerInfo(@NotNull String username, @NotNull String normalizedUsername)
+	{
+		if (!revalidatingPlayers.add(normalizedUsername))
+		{
+			return;
+		}
+
+		fetchPlayerInfo(username, normalizedUsername, RequestPriority.SPECULATIVE).whenComplete((data, e) -> {
+			revalidatingPlayers.remove(normalizedUsername);
+
+			final Throwable cause = unwrap(e);
+
+			if (cause instanceof NullPointerException)
+			{
+				// The player's profile is gone
+				invalidatePlayerInfo(username);
+			}
+			else if (cause != null)
+			{
+				log.debug("⚠️ Failed to refresh player info for {}: {}", username, cause.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * Drops a player's cached info, so the next lookup asks the server.
+	 */
+	public void invalidatePlayerInfo(@NotNull String username)
+	{
+		playerInfoCache.remove(PlayerNameUtils.normalizePlayerName(username));
+	}
+
+	@NotNull
+	private CompletableFuture<PlayerInfoResponse.Data> requestPlayerInfo(@NotNull String username, @NotNull RequestPriority priority)
+	{
+		final HttpUrl url = api.newUrlBuilder()
 			.addPathSegments("api/player_info.php")
 			.addQueryParameter("player", username)
 			.addQueryParameter("cloginfo", "1")
 			.addQueryParameter("formattedrsn", "1")
 			.build();
 
+		return get(url, priority).thenApply(response -> {
+			PlayerInfoResponse playerInfoResponse = gson.fromJson(response, PlayerInfoResponse.class);
+			PlayerInfoResponse.Data data = playerInfoResponse.getData();
+			APIError error = playerInfoResponse.getError();
 
-		String response = get(url);
+			if (error != null)
+			{
+				if (error.getCode() == 402)
+				{
+					throw new NullPointerException("Player has no TempleOSRS profile");
+				}
 
-		PlayerInfoResponse playerInfoResponse = gson.fromJson(response, PlayerInfoResponse.class);
-		PlayerInfoResponse.Data data = playerInfoResponse.getData();
-		APIError error = playerInfoResponse.getError();
+				throw new CompletionException(new IOException(String.valueOf(error)));
+			}
 
-		if (error != null)
-		{
-			if (error.getCode() == 402)
+			if (data != null)
 			{
-				throw new NullPointerException("Player has no TempleOSRS profile");
+				return data;
 			}
 
-			throw new IOException(String.valueOf(error));
-		}
-
-		if (data != null)
-		{
-			return data;
-		}
-
-		throw new IOException("Unexpected response format: " + response);
+			throw new CompletionException(new IOException("Unexpected response format: " + response));
+		});
 	}
 
 	/**
-	 * Retrieves the given player's full collection log
+	 * Downloads the given player's full collection log and saves it to the collection store.
+	 * The response is parsed while it is downloaded and saved in batches, so the full log is never held in memory.
 	 *
 	 * @param username The username to query
-	 * @return The collection log data
+	 * @param priority The request's place in the rate limiter's queue
+	 * @return False if the log could not be downloaded
 	 * @link <a href="https://templeosrs.com/api_doc.php#Player_Collection_Log">Player Collection Log API</a>
 	 */
-	public String getPlayerCollectionLog(@NotNull String username)
+	public CompletableFuture<Boolean> fetchAndStorePlayerCollectionLog(@NotNull String username, @NotNull RequestPriority priority)
 	{
-		final HttpUrl url = new HttpUrl.Builder()
-			.scheme(scheme)
-			.host(host)
+		final String normalizedUsername = PlayerNameUtils.normalizePlayerName(username);
+
+		final HttpUrl url = api.newUrlBuilder()
 			.addPathSegments("api/collection-log/player_collection_log.php")
 			.addQueryParameter("player", username)
 			.addQueryParameter("categories", "all")
-			.addQueryParameter("includenames", "1")
 			.addQueryParameter("onlyitems", "1")
 			.build();
 
-		try
-		{
-			String response = get(url);
+		return collectionLogSyncs
+			.share(normalizedUsername, () -> get(url, priority, body -> {
+				collectionParser.parseAndStore(normalizedUsername, body);
 
-			if (response.contains("\"Code\":402") && response.contains("has not synced"))
-			{
-				return "error:unsynced";
-			}
+				return true;
+			}))
+			.exceptionally(e -> {
+				log.error("❌ Exception while fetching log for {}: {}", username, unwrap(e).getMessage());
 
-			return response;
-		}
-		catch (Exception e)
-		{
-			log.error("❌ Exception while fetching log for {}: {}", username, e.getMessage());
+				return false;
+			});
+	}
 
-			return null;
-		}
+	@Value
+	private static class CachedPlayerInfo
+	{
+		PlayerInfoResponse.Data data;
+
+		long fetchedAtMillis;
 	}
 }
@@ -1,9 +1,11 @@
 package com.templeosrs.util.collections.autosync;
 
-import com.templeosrs.util.api.QuadraticBackoffStrategy;
+import com.templeosrs.util.api.ExponentialBackoffStrategy;
 import com.templeosrs.util.collections.CollectionLogManager;
 import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionStore;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +28,9 @@ public class CollectionLogAutoSyncGameTickSubscriber
 	@Inject
 	private ScheduledExecutorService scheduledExecutorService;
 
+	@Inject
+	private CollectionStore collectionStore;
+
 	/**
 	 * Listens for game ticks and checks if the sync countdown has completed.
 	 * Once the countdown is complete, and there are items pending a sync
@@ -34,7 +39,7 @@ public class CollectionLogAutoSyncGameTickSubscriber
 	@Subscribe
 	public void onGameTick(GameTick gameTick)
 	{
-		QuadraticBackoffStrategy backoffStrategy = collectionLogAutoSyncManager.getBackoffStrategy();
+		ExponentialBackoffStrategy backoffStrategy = collectionLogAutoSyncManager.getBackoffStrategy();
 
 		if (backoffStrategy.isRequestLimitReached())
 		{
@@ -59,7 +64,11 @@ public class CollectionLogAutoSyncGameTickSubscriber
 		)
 		{
 			collectionLogAutoSyncManager.setComputingDiff(true);
-			scheduledExecutorService.execute(collectionLogAutoSyncManager::computeCollectionLogDiff);
+			collectionStore.executeWhenReady(scheduledExecutorService, collectionLogAutoSyncManager::computeCollectionLogDiff, () -> {
+				// Without the local cache there is nothing to diff against, so wait for the log to be opened again
+				collectionLogAutoSyncManager.clearSyncCountdown();
+				collectionLogAutoSyncManager.setComputingDiff(false);
+			});
 
 			return;
 		}
@@ -72,8 +81,11 @@ public class CollectionLogAutoSyncGameTickSubscriber
 		// Sync new collection log items when the game has reached correct tick.
 		if (client.getTickCount() >= gameTickToSync)
 		{
+			// Copied here, as the subscribers keep adding to the pending items while the upload is in flight
+			final Set<ObtainedCollectionItem> itemsToSync = new HashSet<>(pendingSyncItems);
+
 			backoffStrategy.setSubmitting(true);
-			scheduledExecutorService.execute(collectionLogAutoSyncManager::uploadObtainedCollectionLogItems);
+			scheduledExecutorService.execute(() -> collectionLogAutoSyncManager.uploadObtainedCollectionLogItems(itemsToSync));
 		}
 	}
 }
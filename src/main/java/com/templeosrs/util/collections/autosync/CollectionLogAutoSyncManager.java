@@ -4,13 +4,14 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.gson.Gson;
 import com.templeosrs.util.api.APIError;
-import com.templeosrs.util.api.QuadraticBackoffStrategy;
+import com.templeosrs.util.api.ExponentialBackoffStrategy;
+import com.templeosrs.util.api.RequestManager;
 import com.templeosrs.util.collections.CollectionLogManager;
 import com.templeosrs.util.collections.CollectionLogRequestManager;
 import com.templeosrs.util.collections.data.CollectionLogSyncResponse;
 import com.templeosrs.util.collections.data.ObtainedCollectionItem;
 import com.templeosrs.util.collections.data.PlayerProfile;
-import com.templeosrs.util.collections.database.CollectionDatabase;
+import com.templeosrs.util.collections.database.CollectionStore;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.HashSet;
@@ -44,7 +45,8 @@ public class CollectionLogAutoSyncManager
 	protected final HashSet<ObtainedCollectionItem> pendingSyncItems = new HashSet<>();
 
 	@Getter
-	QuadraticBackoffStrategy backoffStrategy = new QuadraticBackoffStrategy();
+	@Inject
+	private ExponentialBackoffStrategy backoffStrategy;
 
 	@Inject
 	private CollectionLogAutoSyncChatMessageSubscriber collectionLogAutoSyncChatMessageSubscriber;
@@ -79,6 +81,9 @@ public class CollectionLogAutoSyncManager
 	@Inject
 	private CollectionLogManager collectionLogManager;
 
+	@Inject
+	private CollectionStore collectionStore;
+
 	@Inject
 	private Gson gson;
 
@@ -185,7 +190,7 @@ public class CollectionLogAutoSyncManager
 		{
 			String username = client.getLocalPlayer().getName();
 
-			if (username == null || !CollectionDatabase.hasPlayerData(username))
+			if (username == null || !collectionStore.hasPlayerData(username))
 			{
 				log.debug("No saved log items were found, falling back to a full sync for {}", username);
 
@@ -208,7 +213,7 @@ public class CollectionLogAutoSyncManager
 				collectionLogItemIdCountMap.add(itemId, itemCount);
 			}
 
-			final Multiset<Integer> itemDiff = CollectionDatabase.getCollectionLogDiff(username, collectionLogItemIdCountMap);
+			final Multiset<Integer> itemDiff = collectionStore.getCollectionLogDiff(username, collectionLogItemIdCountMap);
 
 			if (itemDiff == null || itemDiff.isEmpty())
 			{
@@ -239,9 +244,12 @@ public class CollectionLogAutoSyncManager
 	/**
 	 * Uploads the obtained collection log items to the server.
 	 * This is called when the sync countdown has completed and there are items pending a sync.
+	 *
+	 * @param items A copy of the pending items taken on the client thread; items obtained while it is uploaded stay
+	 *              pending for the next sync
 	 */
 	@Synchronized
-	public void uploadObtainedCollectionLogItems()
+	public void uploadObtainedCollectionLogItems(Set<ObtainedCollectionItem> items)
 	{
 		if (backoffStrategy.shouldSkipRequest())
 		{
@@ -252,6 +260,7 @@ public class CollectionLogAutoSyncManager
 
 		if (username == null)
 		{
+			backoffStrategy.finishCycle();
 			return;
 		}
 
@@ -262,36 +271,51 @@ public class CollectionLogAutoSyncManager
 			profileKey.getUsername(),
 			profileKey.getProfileType().name(),
 			client.getAccountHash(),
-			pendingSyncItems
+			items
 		);
 
-		try
-		{
-			String response = requestManager.uploadObtainedCollectionLogItems(submission);
-
-			CollectionLogSyncResponse collectionLogSyncResponse = gson.fromJson(response, CollectionLogSyncResponse.class);
-			String lastChangedTimestamp = getLastChangedTimestamp(collectionLogSyncResponse, response);
-
-			log.debug("response: {}, lastChanged: {}", response, lastChangedTimestamp);
-
-			// Saves the new/updated items to the API cache to prevent refetching the entire log
-			CollectionDatabase.upsertItemsBatch(username, pendingSyncItems, Timestamp.valueOf(lastChangedTimestamp));
-
-			obtainedItemNames.clear();
-			pendingSyncItems.clear();
-
-			clearSyncCountdown();
-
-			log.debug("Successfully synchronised new log items for {}", submission.getUsername());
-		}
-		catch (IOException | NullPointerException e)
-		{
-			log.error("❌ Failed to upload obtained collection log items: {}", e.getMessage());
-		}
-		finally
-		{
-			backoffStrategy.finishCycle();
-		}
+		requestManager.uploadObtainedCollectionLogItems(submission).whenComplete((response, e) -> {
+			try
+			{
+				if (e != null)
+				{
+					log.error("❌ Failed to upload obtained collection log items: {}", RequestManager.unwrap(e).getMessage());
+					backoffStrategy.finishCycle();
+					return;
+				}
+
+				CollectionLogSyncResponse collectionLogSyncResponse = gson.fromJson(response, CollectionLogSyncResponse.class);
+				String lastChangedTimestamp = getLastChangedTimestamp(collectionLogSyncResponse, response);
+
+				log.debug("response: {}, lastChanged: {}", response, lastChangedTimestamp);
+
+				// Saves the new/updated items to the API cache to prevent refetching the entire log
+				collectionStore.upsertItemsBatch(username, items, Timestamp.valueOf(lastChangedTimestamp));
+
+				// The pending items are only touched on the client thread, and the next upload waits until the sent
+				// ones have been removed; both branches reset the strategy, which ends the cycle
+				clientThread.invokeLater(() -> {
+					obtainedItemNames.clear();
+					pendingSyncItems.removeAll(items);
+
+					if (pendingSyncItems.isEmpty())
+					{
+						clearSyncCountdown();
+					}
+					else
+					{
+						backoffStrategy.reset();
+					}
+				});
+
+				log.debug("Successfully synchronised new log items for {}", submission.getUsername());
+			}
+			catch (IOException | RuntimeException error)
+			{
+				log.error("❌ Failed to upload obtained collection log items: {}", error.getMessage());
+				backoffStrategy.finishCycle();
+			}
+		});
 	}
 
 	private String getLastChangedTimestamp(CollectionLogSyncResponse collectionLogSyncResponse, String response) throws IOException
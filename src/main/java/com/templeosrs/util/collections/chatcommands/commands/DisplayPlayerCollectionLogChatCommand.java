@@ -1,19 +1,17 @@
 package com.templeosrs.util.collections.chatcommands.commands;
 
-import com.templeosrs.TempleOSRSPlugin;
+import com.templeosrs.util.api.RequestManager;
+import com.templeosrs.util.api.RequestPriority;
 import com.templeosrs.util.collections.CollectionLogCategorySlug;
 import com.templeosrs.util.collections.CollectionLogManager;
 import com.templeosrs.util.collections.CollectionLogRequestManager;
 import com.templeosrs.util.collections.chatcommands.ChatCommand;
 import com.templeosrs.util.collections.data.CollectionLogCategory;
 import com.templeosrs.util.collections.data.ObtainedCollectionItem;
-import com.templeosrs.util.collections.data.PlayerInfoResponse;
-import com.templeosrs.util.collections.database.CollectionDatabase;
-import com.templeosrs.util.collections.parser.CollectionParser;
+import com.templeosrs.util.collections.database.CollectionStore;
 import com.templeosrs.util.collections.services.CollectionLogService;
 import com.templeosrs.util.collections.utils.CollectionLogCategoryUtils;
 import com.templeosrs.util.collections.utils.PlayerNameUtils;
-import java.io.IOException;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -42,13 +40,10 @@ public class DisplayPlayerCollectionLogChatCommand extends ChatCommand
 	private CollectionLogRequestManager collectionLogRequestManager;
 
 	@Inject
-	private TempleOSRSPlugin templeOSRSPlugin;
+	private CollectionLogService collectionLogService;
 
 	@Inject
-	private CollectionParser collectionParser;
-
-	@Inject
-	private CollectionLogService collectionLogService;
+	private CollectionStore collectionStore;
 
 	public DisplayPlayerCollectionLogChatCommand()
 	{
@@ -120,56 +115,26 @@ public class DisplayPlayerCollectionLogChatCommand extends ChatCommand
 			return;
 		}
 
-		scheduledExecutorService.execute(() ->
-		{
-			final PlayerInfoResponse.Data playerInfo = getPlayerInfo(normalizedPlayerName, event);
-
-			if (playerInfo == null)
-			{
-				// Error messages are handled when getting the player info
-				return;
-			}
-
-			final String prettyPlayerName = playerInfo.getPlayerNameWithCapitalization();
-
-			if (playerInfo.getCollectionLog().getLastChanged() == null)
-			{
-				overwriteMessage(
-					new ChatMessageBuilder()
-						.append(ChatColorType.NORMAL)
-						.append("No TempleOSRS collection log found for ")
-						.append(ChatColorType.HIGHLIGHT)
-						.append(prettyPlayerName)
-						.append(".")
-						.build(),
-					event.getMessageNode()
-				);
-
-				return;
-			}
-
-			final String lastChanged = playerInfo.getCollectionLog().getLastChanged();
+		// The requests wait for the rate limiter off this executor, so only the callbacks run on it
+		collectionStore.executeWhenReady(scheduledExecutorService, () -> collectionLogRequestManager
+			.getPlayerInfo(normalizedPlayerName, RequestPriority.LOOKUP)
+			.whenCompleteAsync((playerInfo, e) -> {
+				if (e != null)
+				{
+					showPlayerInfoError(normalizedPlayerName, RequestManager.unwrap(e), event);
+					return;
+				}
 
-			final boolean isDataStale = !collectionLogService.isDataFresh(normalizedPlayerName, lastChanged);
-			final boolean hasLocalData = CollectionDatabase.hasPlayerData(normalizedPlayerName);
-			final boolean shouldUpdate = !hasLocalData || isDataStale;
+				final String prettyPlayerName = playerInfo.getPlayerNameWithCapitalization();
 
-			if (shouldUpdate)
-			{
-				log.debug("📭 No local data for '{}', fetching from API...", normalizedPlayerName);
-				final String json = collectionLogRequestManager.getPlayerCollectionLog(normalizedPlayerName);
-
-				if (json == null)
+				if (playerInfo.getCollectionLog().getLastChanged() == null)
 				{
-					log.warn("❌ No data fetched for user: {}", normalizedPlayerName);
-
 					overwriteMessage(
 						new ChatMessageBuilder()
 							.append(ChatColorType.NORMAL)
-							.append("Failed to fetch log for ")
+							.append("No TempleOSRS collection log found for ")
 							.append(ChatColorType.HIGHLIGHT)
 							.append(prettyPlayerName)
-							.append(ChatColorType.NORMAL)
 							.append(".")
 							.build(),
 						event.getMessageNode()
@@ -178,93 +143,124 @@ public class DisplayPlayerCollectionLogChatCommand extends ChatCommand
 					return;
 				}
 
-				if (!isLocalPlayer)
-				{
-					CollectionDatabase.pruneOldPlayers(localName, templeOSRSPlugin.getConfig().maxCachedPlayers());
-				}
-
-				collectionParser.parseAndStore(PlayerNameUtils.normalizePlayerName(playerName), json);
-			}
-			else
-			{
-				log.debug("✔️ Found cached data for '{}'", normalizedPlayerName);
-			}
+				final String lastChanged = playerInfo.getCollectionLog().getLastChanged();
 
-			// Fetch the requested category
-			final Set<ObtainedCollectionItem> items = CollectionDatabase.getItemsByCategory(
-				normalizedPlayerName,
-				new LinkedHashSet<>(category.getItems())
-			);
+				final boolean isDataStale = !collectionLogService.isDataFresh(normalizedPlayerName, lastChanged);
+				final boolean hasLocalData = collectionStore.hasPlayerData(normalizedPlayerName);
+				final boolean shouldUpdate = !hasLocalData || isDataStale;
 
-			itemSpriteManager.loadItemSprites(
-				items
-					.stream()
-					.map(ObtainedCollectionItem::getId)
-					.collect(Collectors.toList())
-			);
+				if (!shouldUpdate)
+				{
+					log.debug("✔️ Found cached data for '{}'", normalizedPlayerName);
 
-			final ChatMessageBuilder chatMessageBuilder = new ChatMessageBuilder();
-			final String categoryName = category.getTitle();
+					displayCategory(category, normalizedPlayerName, prettyPlayerName, playerName, senderName, event);
+					return;
+				}
 
-			assert senderName != null;
+				log.debug("📭 No local data for '{}', fetching from API...", normalizedPlayerName);
 
-			// If sender's name is same as the player being queried, omit the player's name
-			if (!senderName.equalsIgnoreCase(playerName))
-			{
-				chatMessageBuilder
-					.append(ChatColorType.HIGHLIGHT)
-					.append(prettyPlayerName + "'s ")
-					.append(categoryName)
-					.append(ChatColorType.NORMAL);
-			}
-			else
-			{
-				chatMessageBuilder.append(categoryName);
-			}
+				collectionLogRequestManager
+					.fetchAndStorePlayerCollectionLog(normalizedPlayerName, RequestPriority.LOOKUP)
+					.thenAcceptAsync(fetched -> {
+						if (!fetched)
+						{
+							log.warn("❌ No data fetched for user: {}", normalizedPlayerName);
+
+							overwriteMessage(
+								new ChatMessageBuilder()
+									.append(ChatColorType.NORMAL)
+									.append("Failed to fetch log for ")
+									.append(ChatColorType.HIGHLIGHT)
+									.append(prettyPlayerName)
+									.append(ChatColorType.NORMAL)
+									.append(".")
+									.build(),
+								event.getMessageNode()
+							);
+
+							return;
+						}
+
+						displayCategory(category, normalizedPlayerName, prettyPlayerName, playerName, senderName, event);
+					}, scheduledExecutorService);
+			}, scheduledExecutorService));
+	}
 
+	/**
+	 * Replaces the command with the player's saved items from the category.
+	 */
+	private void displayCategory(CollectionLogCategory category, String normalizedPlayerName, String prettyPlayerName, String playerName, String senderName, ChatMessage event)
+	{
+		// Fetch the requested category
+		final Set<ObtainedCollectionItem> items = collectionStore.getItemsByCategory(
+			normalizedPlayerName,
+			new LinkedHashSet<>(category.getItems())
+		);
+
+		itemSpriteManager.loadItemSprites(
+			items
+				.stream()
+				.map(ObtainedCollectionItem::getId)
+				.collect(Collectors.toList())
+		);
+
+		final ChatMessageBuilder chatMessageBuilder = new ChatMessageBuilder();
+		final String categoryName = category.getTitle();
+
+		assert senderName != null;
+
+		// If sender's name is same as the player being queried, omit the player's name
+		if (!senderName.equalsIgnoreCase(playerName))
+		{
 			chatMessageBuilder
-				.append(getLogProgress(items.size(), category.getItems().size()))
-				.append(": ");
+				.append(ChatColorType.HIGHLIGHT)
+				.append(prettyPlayerName + "'s ")
+				.append(categoryName)
+				.append(ChatColorType.NORMAL);
+		}
+		else
+		{
+			chatMessageBuilder.append(categoryName);
+		}
 
-			if (items.isEmpty())
-			{
-				chatMessageBuilder.append("No obtained collection log items.");
-			}
-			else
+		chatMessageBuilder
+			.append(getLogProgress(items.size(), category.getItems().size()))
+			.append(": ");
+
+		if (items.isEmpty())
+		{
+			chatMessageBuilder.append("No obtained collection log items.");
+		}
+		else
+		{
+			int i = 0;
+
+			for (ObtainedCollectionItem item : items)
 			{
-				int i = 0;
+				final Integer iconIndex = itemSpriteManager.getItemSpriteIndexes().get(item.getId());
 
-				for (ObtainedCollectionItem item : items)
+				if (iconIndex != null)
 				{
-					final Integer iconIndex = itemSpriteManager.getItemSpriteIndexes().get(item.getId());
-
-					if (iconIndex != null)
-					{
-						chatMessageBuilder.img(iconIndex);
-					}
+					chatMessageBuilder.img(iconIndex);
+				}
 
-					chatMessageBuilder
-						.append("x")
-						.append(String.valueOf(item.getCount()));
+				chatMessageBuilder
+					.append("x")
+					.append(String.valueOf(item.getCount()));
 
-					if (i++ < items.size() - 1)
-					{
-						chatMessageBuilder.append(", ");
-					}
+				if (i++ < items.size() - 1)
+				{
+					chatMessageBuilder.append(", ");
 				}
 			}
+		}
 
-			overwriteMessage(chatMessageBuilder.build(), event.getMessageNode());
-		});
+		overwriteMessage(chatMessageBuilder.build(), event.getMessageNode());
 	}
 
-	private PlayerInfoResponse.Data getPlayerInfo(String playerName, ChatMessage chatMessage)
+	private void showPlayerInfoError(String playerName, Throwable e, ChatMessage chatMessage)
 	{
-		try
-		{
-			return collectionLogRequestManager.getPlayerInfo(playerName);
-		}
-		catch (NullPointerException e)
+		if (e instanceof NullPointerException)
 		{
 			overwriteMessage(
 				new ChatMessageBuilder()
@@ -277,19 +273,17 @@ public class DisplayPlayerCollectionLogChatCommand extends ChatCommand
 					.build(),
 				chatMessage.getMessageNode()
 			);
-		}
-		catch (IOException e)
-		{
-			overwriteMessage(
-				new ChatMessageBuilder()
-					.append(ChatColorType.NORMAL)
-					.append("Failed to fetch from TempleOSRS.")
-					.build(),
-				chatMessage.getMessageNode()
-			);
+
+			return;
 		}
 
-		return null;
+		overwriteMessage(
+			new ChatMessageBuilder()
+				.append(ChatColorType.NORMAL)
+				.append("Failed to fetch from TempleOSRS.")
+				.build(),
+			chatMessage.getMessageNode()
+		);
 	}
 
 	private String getCategoryKeyFromMessageInput(String bossInput)
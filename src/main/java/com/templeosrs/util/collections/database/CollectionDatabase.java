@@ -1,147 +1,337 @@
 package com.templeosrs.util.collections.database;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
-import com.google.common.collect.Multisets;
+import com.templeosrs.TempleOSRSConfig;
 import com.templeosrs.util.collections.data.ObtainedCollectionItem;
 import java.io.File;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
-import java.util.ArrayList;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.RuneLite;
-import org.apache.commons.lang3.StringUtils;
+import org.h2.jdbcx.JdbcConnectionPool;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * Stores collection logs in normalised H2 tables, with a read-through snapshot cache and a background write queue.
+ */
 @Slf4j
 @Singleton
-public class CollectionDatabase
+public class CollectionDatabase implements CollectionStore
 {
-	private static final String DB_URL = "jdbc:h2:file:" + RuneLite.RUNELITE_DIR + "/templeosrs/runelite-collections;AUTO_SERVER=TRUE;DB_CLOSE_DELAY=-1";
+	/**
+	 * H2 keeps a per-session cache of parsed statements (QUERY_CACHE_SIZE), which is only useful because
+	 * pooled sessions outlive the individual queries that are run on them.
+	 * <p>
+	 * The pool keeps the database open between queries, and {@link #shutDown()} closes it explicitly, so
+	 * DB_CLOSE_DELAY is only a safety net that releases the files shortly after the pool goes away.
+	 */
+	private static final String DB_URL_FORMAT = "jdbc:h2:file:%s/runelite-collections;AUTO_SERVER=TRUE;DB_CLOSE_DELAY=10;QUERY_CACHE_SIZE=32";
+
+	/**
+	 * Chat commands, auto-sync and the login sync can all touch the database at the same time,
+	 * but never more than a handful of them.
+	 */
+	private static final int MAX_POOLED_CONNECTIONS = 4;
+
+	private static final int CONNECTION_TIMEOUT_SECONDS = 10;
+
+	/**
+	 * How often committed changes are checkpointed, which bounds how much of the log H2 has to replay after a crash
+	 */
+	private static final long CHECKPOINT_INTERVAL_MINUTES = 5;
+
+	private static final long ACCESS_TIME_FLUSH_INTERVAL_SECONDS = 60;
+
+	private static final String PLAYER_TABLE_NAME = CollectionDatabaseMigrations.PLAYER_TABLE_NAME;
+	private static final String ITEM_ORDER_TABLE_NAME = CollectionDatabaseMigrations.ITEM_ORDER_TABLE_NAME;
+
+	@Inject
+	private TempleOSRSConfig config;
+
+	@Inject
+	private ScheduledExecutorService scheduledExecutorService;
+
+	private final File directory;
+
+	@Nullable
+	private JdbcConnectionPool connectionPool;
+
+	@Nullable
+	private ScheduledFuture<?> checkpointTask;
+
+	@Nullable
+	private ScheduledFuture<?> accessTimeFlushTask;
+
+	/**
+	 * Access times that haven't been written yet, keyed by lowercase player name
+	 */
+	private final Map<String, Timestamp> pendingAccessTimes = new ConcurrentHashMap<>();
+
+	/**
+	 * Replaced on every {@link #startUp()}, so a restarted plugin waits for the database to be opened again
+	 */
+	private volatile CompletableFuture<Void> ready = new CompletableFuture<>();
+
+	/**
+	 * Read-through copies of recently used logs; sized to hold every cached player plus the local player
+	 */
+	private final CollectionLogSnapshotCache snapshotCache = new CollectionLogSnapshotCache(
+		() -> config.maxCachedPlayers() + 1
+	);
+
+	/**
+	 * Every item order that logs have been packed with, keyed by ID
+	 */
+	private final Map<Integer, CollectionLogItemOrder> itemOrders = new ConcurrentHashMap<>();
+
+	/**
+	 * The ID of the order new logs are packed with, or null to pack every item by ID
+	 */
+	@Nullable
+	private volatile Integer currentItemOrderId;
 
-	private static final String COLLECTION_LOG_CACHE_TABLE_NAME = "collection_log_cache";
-	private static final String PLAYER_METADATA_TABLE_NAME = "player_metadata";
+	private final CollectionLogWriteQueue writeQueue = new CollectionLogWriteQueue(this::writeBatch);
 
-	static
+	@Inject
+	public CollectionDatabase()
 	{
-		File pluginDir = new File(RuneLite.RUNELITE_DIR, "templeosrs");
-		if (!pluginDir.exists())
-		{
-			if (!pluginDir.mkdirs())
-			{
-				log.warn("⚠️ Failed to create plugin directory at {}", pluginDir.getAbsolutePath());
-			}
-		}
+		this(new File(RuneLite.RUNELITE_DIR, "templeosrs"));
+	}
+
+	/**
+	 * @param directory The directory that holds the database files
+	 */
+	public CollectionDatabase(File directory)
+	{
+		this.directory = directory;
 	}
 
-	public static Connection getConnection() throws SQLException
+	/**
+	 * Opens and migrates the database on the executor, so the H2 cold start never holds up client startup.
+	 */
+	@Override
+	public void startUp()
 	{
-		return DriverManager.getConnection(DB_URL);
+		final CompletableFuture<Void> opened = new CompletableFuture<>();
+
+		ready = opened;
+		scheduledExecutorService.execute(() -> initialize(opened));
+
+		checkpointTask = scheduledExecutorService.scheduleWithFixedDelay(
+			this::checkpoint,
+			CHECKPOINT_INTERVAL_MINUTES,
+			CHECKPOINT_INTERVAL_MINUTES,
+			TimeUnit.MINUTES
+		);
+
+		accessTimeFlushTask = scheduledExecutorService.scheduleWithFixedDelay(
+			this::flushAccessTimes,
+			ACCESS_TIME_FLUSH_INTERVAL_SECONDS,
+			ACCESS_TIME_FLUSH_INTERVAL_SECONDS,
+			TimeUnit.SECONDS
+		);
 	}
 
-	public static void init()
+	private void initialize(CompletableFuture<Void> opened)
 	{
+		if (!directory.exists())
+		{
+			if (!directory.mkdirs())
+			{
+				log.warn("⚠️ Failed to create plugin directory at {}", directory.getAbsolutePath());
+			}
+		}
+
 		try
 		{
 			// 🚨 Required for Plugin Hub: explicitly load the H2 JDBC driver
 			Class.forName("org.h2.Driver");
 
-			try (Connection conn = getConnection(); Statement stmt = conn.createStatement())
+			// Borrowed from the pool directly, as getConnection() waits for initialisation to finish
+			try (Connection conn = getConnectionPool().getConnection())
 			{
-				final String createCollectionLogCacheTableSql = String.format(
-					"CREATE TABLE IF NOT EXISTS %s(" +
-						"id IDENTITY PRIMARY KEY, " +
-						"item_id INT, " +
-						"item_name VARCHAR(255), " +
-						"item_count INT, " +
-						"player_name VARCHAR(255)" +
-						")",
-					COLLECTION_LOG_CACHE_TABLE_NAME
-				);
-
-				final String createPlayerMetadataTableSql = String.format(
-					"CREATE TABLE IF NOT EXISTS %s(" +
-						"id IDENTITY PRIMARY KEY, " +
-						"player_name VARCHAR(255), " +
-						"last_changed TIMESTAMP, " +
-						"last_accessed TIMESTAMP" +
-						")",
-					PLAYER_METADATA_TABLE_NAME
-				);
+				final int schemaVersion = SchemaMigrator.migrate(conn, CollectionDatabaseMigrations.MIGRATIONS);
 
-				stmt.executeUpdate(createCollectionLogCacheTableSql);
-				stmt.executeUpdate(createPlayerMetadataTableSql);
+				log.debug("🗄️ Collection log database is at schema version {}", schemaVersion);
 			}
+
+			writeQueue.start();
+			opened.complete(null);
 		}
 		catch (ClassNotFoundException e)
 		{
 			log.warn("H2 Driver class not found: {}", e.getMessage());
+			opened.completeExceptionally(e);
 		}
 		catch (SQLException e)
 		{
 			log.warn("Database initialization failed: {}", e.getMessage());
+			opened.completeExceptionally(e);
 		}
 	}
 
-	private static void addColumnIfNotExists(Connection conn, String table, String column, String type) throws SQLException
+	@Override
+	public void shutDown()
 	{
-		String checkQuery = "SELECT * FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?";
-		try (PreparedStatement ps = conn.prepareStatement(checkQuery))
+		if (checkpointTask != null)
 		{
-			ps.setString(1, table.toUpperCase());
-			ps.setString(2, column.toUpperCase());
-			try (ResultSet rs = ps.executeQuery())
+			checkpointTask.cancel(false);
+			checkpointTask = null;
+		}
+
+		if (accessTimeFlushTask != null)
+		{
+			accessTimeFlushTask.cancel(false);
+			accessTimeFlushTask = null;
+		}
+
+		writeQueue.stop();
+		flushAccessTimes();
+		close();
+	}
+
+	@Override
+	public CompletableFuture<Void> whenReady()
+	{
+		return ready;
+	}
+
+	@Override
+	public void flush()
+	{
+		writeQueue.flush();
+		flushAccessTimes();
+		checkpoint();
+	}
+
+	/**
+	 * Borrows a connection from the pool, opening the pool first if required.
+	 * Closing the returned connection hands the underlying session back to the pool.
+	 * <p>
+	 * Callers should wait for {@link #whenReady()}; as a safety net, this blocks until the schema is up-to-date.
+	 *
+	 * @throws SQLException If the database could not be opened or migrated
+	 */
+	public Connection getConnection() throws SQLException
+	{
+		try
+		{
+			ready.join();
+		}
+		catch (CompletionException e)
+		{
+			throw new SQLException("The collection log database could not be opened", e.getCause());
+		}
+
+		return getConnectionPool().getConnection();
+	}
+
+	/**
+	 * Saves any queued writes, then shuts the database down and releases every pooled session.
+	 */
+	private void close()
+	{
+		// Must happen outside the lock, as the writer needs the pool to finish
+		writeQueue.flush();
+
+		synchronized (this)
+		{
+			if (connectionPool == null)
 			{
-				if (!rs.next())
-				{
-					try (Statement stmt = conn.createStatement())
-					{
-						stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
-					}
-				}
+				return;
+			}
+
+			try (Connection conn = connectionPool.getConnection(); Statement stmt = conn.createStatement())
+			{
+				stmt.execute("SHUTDOWN");
+			}
+			catch (SQLException e)
+			{
+				log.warn("Error shutting down the database: {}", e.getMessage());
+			}
+			finally
+			{
+				connectionPool.dispose();
+				connectionPool = null;
 			}
 		}
 	}
 
-	public static boolean hasPlayerData(String playerName)
+	/**
+	 * Writes committed changes to the database file, so they don't have to be replayed when it is next opened.
+	 */
+	private void checkpoint()
 	{
-		String sql = String.format("SELECT 1 FROM %s WHERE player_name = ? LIMIT 1", COLLECTION_LOG_CACHE_TABLE_NAME);
+		synchronized (this)
+		{
+			if (connectionPool == null)
+			{
+				return;
+			}
+		}
 
-		try (Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sql))
+		try (Connection conn = getConnection(); Statement stmt = conn.createStatement())
 		{
-			ps.setString(1, playerName.toLowerCase());
-			ResultSet rs = ps.executeQuery();
-			return rs.next();
+			stmt.execute("CHECKPOINT");
 		}
 		catch (SQLException e)
 		{
-			log.warn("Error checking player data: {}", e.getMessage());
-			return false;
+			log.warn("Error checkpointing the database: {}", e.getMessage());
+		}
+	}
+
+	private synchronized JdbcConnectionPool getConnectionPool()
+	{
+		if (connectionPool == null)
+		{
+			connectionPool = JdbcConnectionPool.create(String.format(DB_URL_FORMAT, directory.getAbsolutePath()), "", "");
+			connectionPool.setMaxConnections(MAX_POOLED_CONNECTIONS);
+			connectionPool.setLoginTimeout(CONNECTION_TIMEOUT_SECONDS);
 		}
+
+		return connectionPool;
 	}
 
 	/**
-	 * Saves the API response data to the API cache table
+	 * Queues the API response data to be saved to the API cache tables.
+	 * Reads made through this class see the items straight away, before they have been written.
 	 *
 	 * @param playerName The player name associated with the response
 	 * @param items      The items to persist to the database
 	 */
-	public static void upsertItemsBatch(
+	@Override
+	public void upsertItemsBatch(
 		@NotNull String playerName,
-		@NotNull Set<ObtainedCollectionItem> items,
-		Timestamp lastChanged
+		@NotNull Collection<ObtainedCollectionItem> items,
+		@Nullable Timestamp lastChanged
 	)
+	{
+		writeQueue.submit(playerName.toLowerCase(), items, lastChanged);
+	}
+
+	/**
+	 * Saves a group of queued writes in a single transaction.
+	 * Each player's saved log is unpacked, merged with the new items and packed again with the current item order.
+	 */
+	private void writeBatch(Collection<CollectionLogWriteQueue.PendingWrite> writes)
 	{
 		try (Connection conn = getConnection())
 		{
@@ -149,47 +339,54 @@ public class CollectionDatabase
 
 			try (
 				PreparedStatement ps1 = conn.prepareStatement(
-					String.format("MERGE INTO %s USING DUAL ", COLLECTION_LOG_CACHE_TABLE_NAME) +
-						"ON item_id = ? AND player_name = ? " +
-						"WHEN MATCHED THEN UPDATE SET item_count = ? " +
-						"WHEN NOT MATCHED THEN INSERT (player_name, item_id, item_count, item_name) VALUES (?, ?, ?, ?)"
+					String.format("SELECT last_changed, item_order_id, collection_log FROM %s WHERE player_name = ?", PLAYER_TABLE_NAME)
 				);
 				PreparedStatement ps2 = conn.prepareStatement(
-					String.format("MERGE INTO %s USING DUAL ", PLAYER_METADATA_TABLE_NAME) +
-						"ON player_name = ? " +
-						"WHEN MATCHED THEN UPDATE SET last_changed = ?, last_accessed = ? " +
-						"WHEN NOT MATCHED THEN INSERT (player_name, last_changed, last_accessed) VALUES (?, ?, ?)"
+					String.format(
+						"MERGE INTO %s (player_name, last_changed, last_accessed, item_order_id, collection_log) " +
+							"KEY (player_name) VALUES (?, ?, ?, ?, ?)",
+						PLAYER_TABLE_NAME
+					)
 				)
 			)
 			{
-				final String lowerPlayerName = playerName.toLowerCase();
 				final Timestamp lastAccessed = new Timestamp(System.currentTimeMillis());
+				final Integer itemOrderId = currentItemOrderId;
+				final CollectionLogItemOrder itemOrder = getItemOrder(conn, itemOrderId);
 
-				for (ObtainedCollectionItem item : items)
+				for (CollectionLogWriteQueue.PendingWrite write : writes)
 				{
-					final int itemId = item.getId();
-					final int itemCount = item.getCount();
-
-					ps1.setInt(1, itemId);
-					ps1.setString(2, lowerPlayerName);
-					ps1.setInt(3, itemCount);
-					ps1.setString(4, lowerPlayerName);
-					ps1.setInt(5, itemId);
-					ps1.setInt(6, itemCount);
-					ps1.setString(7, item.getName());
-
-					ps1.addBatch();
-				}
+					final String lowerPlayerName = write.getPlayerName();
+					final Map<Integer, ObtainedCollectionItem> items = new HashMap<>();
+					Timestamp lastChanged = write.getLastChanged();
+
+					ps1.setString(1, lowerPlayerName);
+
+					try (ResultSet rs = ps1.executeQuery())
+					{
+						if (rs.next())
+						{
+							items.putAll(readCollectionLog(conn, rs));
+
+							// Writes without a timestamp keep the saved one
+							if (lastChanged == null)
+							{
+								lastChanged = rs.getTimestamp("last_changed");
+							}
+						}
+					}
 
-				ps2.setString(1, lowerPlayerName);
-				ps2.setTimestamp(2, lastChanged);
-				ps2.setTimestamp(3, lastAccessed);
-				ps2.setString(4, lowerPlayerName);
-				ps2.setTimestamp(5, lastChanged);
-				ps2.setTimestamp(6, lastAccessed);
+					items.putAll(write.getItems());
+
+					ps2.setString(1, lowerPlayerName);
+					ps2.setTimestamp(2, lastChanged);
+					ps2.setTimestamp(3, lastAccessed);
+					ps2.setObject(4, itemOrderId, Types.INTEGER);
+					ps2.setBytes(5, CompactCollectionLog.encode(items.values(), itemOrder));
+					ps2.addBatch();
+				}
 
-				ps1.executeBatch();
-				ps2.execute();
+				ps2.executeBatch();
 			}
 
 			conn.commit();
@@ -198,199 +395,342 @@ public class CollectionDatabase
 		{
 			log.warn("Error inserting items to the API cache: {}", e.getMessage());
 		}
+		finally
+		{
+			for (CollectionLogWriteQueue.PendingWrite write : writes)
+			{
+				snapshotCache.invalidate(write.getPlayerName());
+			}
+		}
 	}
 
-	public static Multiset<Integer> getCollectionLogDiff(String playerName, Multiset<Integer> collectionLogItems)
+	/**
+	 * Registers the canonical item order read from the game cache, which all logs saved from now on are packed with.
+	 * Logs saved with an older order are still read with that order, and repacked the next time they are saved.
+	 */
+	@Override
+	public synchronized void setItemOrder(List<Integer> itemIds)
 	{
+		final CollectionLogItemOrder itemOrder = CollectionLogItemOrder.of(itemIds);
+		final byte[] itemOrderBytes = itemOrder.toBytes();
+
 		try (Connection conn = getConnection())
 		{
 			try (PreparedStatement ps = conn.prepareStatement(
-				String.format(
-					"SELECT item_count, item_id FROM %s WHERE player_name = ? AND item_id = ? LIMIT 1",
-					COLLECTION_LOG_CACHE_TABLE_NAME
-				)
+				String.format("SELECT id FROM %s WHERE item_ids = ?", ITEM_ORDER_TABLE_NAME)
 			))
 			{
-				final Multiset<Integer> foundItems = HashMultiset.create();
+				ps.setBytes(1, itemOrderBytes);
 
-				for (Multiset.Entry<Integer> entry : collectionLogItems.entrySet())
+				try (ResultSet rs = ps.executeQuery())
 				{
-					final int itemId = entry.getElement();
+					if (rs.next())
+					{
+						currentItemOrderId = rs.getInt("id");
+						itemOrders.put(currentItemOrderId, itemOrder);
 
-					ps.setString(1, playerName.toLowerCase());
-					ps.setInt(2, itemId);
+						return;
+					}
+				}
+			}
 
-					final ResultSet rs = ps.executeQuery();
+			try (PreparedStatement ps = conn.prepareStatement(
+				String.format("INSERT INTO %s (item_ids) VALUES (?)", ITEM_ORDER_TABLE_NAME),
+				Statement.RETURN_GENERATED_KEYS
+			))
+			{
+				ps.setBytes(1, itemOrderBytes);
+				ps.executeUpdate();
 
+				try (ResultSet rs = ps.getGeneratedKeys())
+				{
 					if (rs.next())
 					{
-						final int rsItemCount = rs.getInt("item_count");
-						final int rsItemId = rs.getInt("item_id");
+						currentItemOrderId = rs.getInt(1);
+						itemOrders.put(currentItemOrderId, itemOrder);
 
-						foundItems.add(rsItemId, rsItemCount);
+						log.debug("🗂️ Saved collection log item order {} with {} items", currentItemOrderId, itemOrder.size());
 					}
 				}
-
-				return Multisets.difference(collectionLogItems, foundItems);
 			}
 		}
 		catch (SQLException e)
 		{
-			log.warn("Error comparing collection log: {}", e.getMessage());
-
-			return null;
+			log.warn("Error saving the collection log item order: {}", e.getMessage());
 		}
 	}
 
-	public static Timestamp getLatestTimestamp(String playerName)
+	@Override
+	public void clearAll()
 	{
-		String sql = String.format("SELECT last_changed FROM %s WHERE player_name = ?", PLAYER_METADATA_TABLE_NAME);
-
-		try (Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sql))
+		try (Connection conn = getConnection();
+			 Statement stmt = conn.createStatement())
 		{
-			ps.setString(1, playerName.toLowerCase());
-			ResultSet rs = ps.executeQuery();
-			if (rs.next())
-			{
-				return rs.getTimestamp(1);
-			}
+			stmt.executeUpdate(String.format("UPDATE %s SET item_order_id = NULL, collection_log = NULL", PLAYER_TABLE_NAME));
 		}
 		catch (SQLException e)
 		{
-			log.warn("Error fetching latest timestamp: {}", e.getMessage());
+			log.warn("Error clearing all items: {}", e.getMessage());
+		}
+		finally
+		{
+			snapshotCache.invalidateAll();
 		}
-
-		return null;
 	}
 
-	public static void clearAll()
+	/**
+	 * Deletes the least recently accessed players, along with their items, in a single statement.
+	 */
+	@Override
+	public int evictLeastRecentlyAccessed(@Nullable String keepPlayerName, int maxPlayers)
 	{
-		try (Connection conn = getConnection();
-			 Statement stmt = conn.createStatement())
+		// Victims are chosen by last_accessed, so it has to be up-to-date first
+		flushAccessTimes();
+
+		final String query = String.format(
+			"SELECT player_name FROM OLD TABLE (" +
+				"DELETE FROM %1$s WHERE id IN (" +
+				"SELECT id FROM %1$s WHERE player_name <> ? " +
+				"ORDER BY last_accessed DESC NULLS LAST, id DESC " +
+				"OFFSET ? ROWS" +
+				")" +
+				")",
+			PLAYER_TABLE_NAME
+		);
+
+		int evicted = 0;
+
+		try (Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(query))
 		{
-			stmt.executeUpdate(String.format("DELETE FROM %s", COLLECTION_LOG_CACHE_TABLE_NAME));
+			ps.setString(1, keepPlayerName == null ? "" : keepPlayerName.toLowerCase());
+			ps.setInt(2, Math.max(maxPlayers, 0));
+
+			try (ResultSet rs = ps.executeQuery())
+			{
+				while (rs.next())
+				{
+					final String playerName = rs.getString("player_name");
+
+					log.debug("\uD83E\uDDF9 Evicted cached player: {}", playerName);
+					snapshotCache.invalidate(playerName);
+					evicted++;
+				}
+			}
 		}
 		catch (SQLException e)
 		{
-			log.warn("Error clearing all items: {}", e.getMessage());
+			log.warn("Error evicting old players: {}", e.getMessage());
 		}
+
+		return evicted;
+	}
+
+	/**
+	 * Returns the player's cached log, loading it from the database if it isn't already held in memory.
+	 *
+	 * @return The player's snapshot, or null if the database could not be read
+	 */
+	@Nullable
+	@Override
+	public CollectionLogSnapshot getSnapshot(String playerName)
+	{
+		final String lowerPlayerName = playerName.toLowerCase();
+
+		// Read before the saved copy, so a write committed in between is seen by one or the other
+		final CollectionLogWriteQueue.PendingWrite pendingWrite = writeQueue.getPending(lowerPlayerName);
+
+		return withPendingWrite(loadSnapshot(lowerPlayerName), pendingWrite);
 	}
 
-	public static Set<ObtainedCollectionItem> getItemsByCategory(String playerName, Set<Integer> categoryItems)
+	@Nullable
+	private CollectionLogSnapshot loadSnapshot(String lowerPlayerName)
 	{
-		Map<Integer, ObtainedCollectionItem> items = new HashMap<>();
+		final CollectionLogSnapshot cachedSnapshot = snapshotCache.get(lowerPlayerName);
+
+		if (cachedSnapshot != null)
+		{
+			return cachedSnapshot;
+		}
+
+		final long cacheVersion = snapshotCache.getVersion();
 
 		try (Connection conn = getConnection();
-			 PreparedStatement ps1 = conn.prepareStatement(
+			 PreparedStatement ps = conn.prepareStatement(
 				 String.format(
-					 "SELECT item_id, item_name, item_count FROM %s WHERE player_name = ? AND item_id IN (%s)",
-					 COLLECTION_LOG_CACHE_TABLE_NAME,
-					 StringUtils.repeat("?", ",", categoryItems.size())
+					 "SELECT last_changed, item_order_id, collection_log FROM %s WHERE player_name = ?",
+					 PLAYER_TABLE_NAME
 				 )
-			 );
-			 PreparedStatement ps2 = conn.prepareStatement(
-				 String.format("UPDATE %s ", PLAYER_METADATA_TABLE_NAME) +
-					 "SET last_accessed = ? " +
-					 "WHERE player_name = ?"
 			 )
 		)
 		{
-			conn.setAutoCommit(false);
-
-			final Timestamp lastAccessed = new Timestamp(System.currentTimeMillis());
-			final String lowerPlayerName = playerName.toLowerCase();
+			ps.setString(1, lowerPlayerName);
 
-			ps1.setString(1, playerName.toLowerCase());
-
-			int paramIndex = 2;
-			for (int id : categoryItems)
-			{
-				ps1.setInt(paramIndex, id);
-				paramIndex++;
-			}
+			Timestamp lastChanged = null;
+			Map<Integer, ObtainedCollectionItem> items = Collections.emptyMap();
 
-			try (ResultSet rs = ps1.executeQuery())
+			try (ResultSet rs = ps.executeQuery())
 			{
-				while (rs.next())
+				if (rs.next())
 				{
-					int itemId = rs.getInt("item_id");
-					String itemName = rs.getString("item_name");
-					int count = rs.getInt("item_count");
-
-					items.put(itemId, new ObtainedCollectionItem(itemId, itemName, count));
+					lastChanged = rs.getTimestamp("last_changed");
+					items = readCollectionLog(conn, rs);
 				}
 			}
 
-			ps2.setTimestamp(1, lastAccessed);
-			ps2.setString(2, lowerPlayerName);
+			final CollectionLogSnapshot snapshot = new CollectionLogSnapshot(lastChanged, items);
 
-			ps2.execute();
+			snapshotCache.put(lowerPlayerName, snapshot, cacheVersion);
 
-			conn.commit();
+			return snapshot;
 		}
 		catch (SQLException e)
 		{
-			log.warn("Error fetching items by category: {}", e.getMessage());
+			log.warn("Error loading cached collection log for {}: {}", lowerPlayerName, e.getMessage());
+
+			return null;
+		}
+	}
+
+	/**
+	 * Unpacks the collection_log column of the current row. Items are only decoded as they are read.
+	 */
+	private Map<Integer, ObtainedCollectionItem> readCollectionLog(Connection conn, ResultSet rs) throws SQLException
+	{
+		final byte[] collectionLog = rs.getBytes("collection_log");
+		final int itemOrderId = rs.getInt("item_order_id");
+		final CollectionLogItemOrder itemOrder = getItemOrder(conn, rs.wasNull() ? null : itemOrderId);
+
+		if (collectionLog == null)
+		{
+			return Collections.emptyMap();
+		}
+
+		try
+		{
+			return new CompactCollectionLog(collectionLog, itemOrder);
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Treated as missing, so the log is fetched from the API again
+			log.warn("Discarding unreadable cached collection log: {}", e.getMessage());
+
+			return Collections.emptyMap();
+		}
+	}
+
+	private CollectionLogItemOrder getItemOrder(Connection conn, @Nullable Integer itemOrderId) throws SQLException
+	{
+		if (itemOrderId == null)
+		{
+			return CollectionLogItemOrder.EMPTY;
 		}
 
-		Set<ObtainedCollectionItem> sortedItems = new LinkedHashSet<>();
+		final CollectionLogItemOrder cachedItemOrder = itemOrders.get(itemOrderId);
 
-		// Sorts the database response to match the order found in the log tab
-		for (int itemId : categoryItems)
+		if (cachedItemOrder != null)
 		{
-			if (items.containsKey(itemId))
+			return cachedItemOrder;
+		}
+
+		try (PreparedStatement ps = conn.prepareStatement(
+			String.format("SELECT item_ids FROM %s WHERE id = ?", ITEM_ORDER_TABLE_NAME)
+		))
+		{
+			ps.setInt(1, itemOrderId);
+
+			try (ResultSet rs = ps.executeQuery())
 			{
-				sortedItems.add(items.get(itemId));
+				if (!rs.next())
+				{
+					throw new SQLException("Missing collection log item order " + itemOrderId);
+				}
+
+				final CollectionLogItemOrder itemOrder = CollectionLogItemOrder.fromBytes(rs.getBytes("item_ids"));
+				itemOrders.put(itemOrderId, itemOrder);
+
+				return itemOrder;
 			}
 		}
+	}
 
-		return sortedItems;
+	/**
+	 * Overlays writes that are still queued on top of the saved snapshot.
+	 */
+	@Nullable
+	private static CollectionLogSnapshot withPendingWrite(
+		@Nullable CollectionLogSnapshot snapshot,
+		@Nullable CollectionLogWriteQueue.PendingWrite pendingWrite
+	)
+	{
+		if (pendingWrite == null)
+		{
+			return snapshot;
+		}
+
+		final Map<Integer, ObtainedCollectionItem> items = new HashMap<>();
+		Timestamp lastChanged = pendingWrite.getLastChanged();
+
+		if (snapshot != null)
+		{
+			items.putAll(snapshot.getItems());
+
+			if (lastChanged == null || (snapshot.getLastChanged() != null && snapshot.getLastChanged().after(lastChanged)))
+			{
+				lastChanged = snapshot.getLastChanged();
+			}
+		}
+
+		items.putAll(pendingWrite.getItems());
+
+		return new CollectionLogSnapshot(lastChanged, Collections.unmodifiableMap(items));
 	}
 
-	public static void pruneOldPlayers(String yourUsername, int maxPlayers)
+	/**
+	 * Records the access time in memory only; it is written with every other pending access time by
+	 * {@link #flushAccessTimes()}, so reading a log never turns into a write.
+	 */
+	@Override
+	public void updateLastAccessed(String playerName)
 	{
+		pendingAccessTimes.put(playerName.toLowerCase(), new Timestamp(System.currentTimeMillis()));
+	}
+
+	/**
+	 * Writes every pending access time in a single batch and transaction.
+	 */
+	private void flushAccessTimes()
+	{
+		if (pendingAccessTimes.isEmpty())
+		{
+			return;
+		}
+
+		final Map<String, Timestamp> accessTimes = new HashMap<>(pendingAccessTimes);
+
 		try (Connection conn = getConnection();
-			 PreparedStatement ps1 = conn.prepareStatement(
-				 "SELECT player_name, MIN(last_accessed) as oldest " +
-					 String.format("FROM %s ", COLLECTION_LOG_CACHE_TABLE_NAME) +
-					 "WHERE player_name != ? " +
-					 "GROUP BY player_name " +
-					 "ORDER BY oldest ASC"
-			 );
-			 PreparedStatement deleteStmt = conn.prepareStatement(
-				 String.format(
-					 "DELETE FROM %s AS a INNER JOIN %s AS b WHERE a.player_name = b.player_name AND a.player_name = ?",
-					 COLLECTION_LOG_CACHE_TABLE_NAME,
-					 PLAYER_METADATA_TABLE_NAME
-				 )
+			 PreparedStatement ps = conn.prepareStatement(
+				 String.format("UPDATE %s SET last_accessed = ? WHERE player_name = ?", PLAYER_TABLE_NAME)
 			 )
 		)
 		{
-			ps1.setString(1, yourUsername.toLowerCase());
-			ResultSet rs = ps1.executeQuery();
-
-			int count = 0;
-			List<String> playersToRemove = new ArrayList<>();
+			conn.setAutoCommit(false);
 
-			while (rs.next())
+			for (Map.Entry<String, Timestamp> accessTime : accessTimes.entrySet())
 			{
-				count++;
-				if (count > maxPlayers)
-				{
-					playersToRemove.add(rs.getString("player_name"));
-				}
+				ps.setTimestamp(1, accessTime.getValue());
+				ps.setString(2, accessTime.getKey());
+				ps.addBatch();
 			}
 
-			for (String name : playersToRemove)
-			{
-				log.debug("\uD83E\uDDF9 Pruning cached player: {}", name);
-				deleteStmt.setString(1, name);
-				deleteStmt.executeUpdate();
-			}
+			ps.executeBatch();
+			conn.commit();
+
+			// Keep any access that happened while flushing for the next run
+			accessTimes.forEach(pendingAccessTimes::remove);
 		}
 		catch (SQLException e)
 		{
-			log.warn("Error pruning old players: {}", e.getMessage());
+			log.warn("Error updating last accessed times: {}", e.getMessage());
 		}
 	}
 }
@@ -0,0 +1,233 @@
+package com.templeosrs.util.collections.database;
+
+import com.google.common.collect.ImmutableList;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ordered schema history of the collection log database.
+ * Existing migrations must never be edited once released; add a new version instead.
+ */
+public class CollectionDatabaseMigrations
+{
+	static final String COLLECTION_LOG_CACHE_TABLE_NAME = "collection_log_cache";
+	static final String PLAYER_METADATA_TABLE_NAME = "player_metadata";
+
+	static final String PLAYER_TABLE_NAME = "collection_log_player";
+	static final String ITEM_TABLE_NAME = "collection_log_item";
+	static final String PLAYER_ITEM_TABLE_NAME = "collection_log_player_item";
+	static final String ITEM_ORDER_TABLE_NAME = "collection_log_item_order";
+
+	public static final List<SchemaMigration> MIGRATIONS = ImmutableList.of(
+		// Matches the tables created before schema versioning existed, so older databases adopt version 1 as-is
+		SchemaMigration.of(
+			1,
+			"Create collection log cache tables",
+			String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"id IDENTITY PRIMARY KEY, " +
+					"item_id INT, " +
+					"item_name VARCHAR(255), " +
+					"item_count INT, " +
+					"player_name VARCHAR(255)" +
+					")",
+				COLLECTION_LOG_CACHE_TABLE_NAME
+			),
+			String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"id IDENTITY PRIMARY KEY, " +
+					"player_name VARCHAR(255), " +
+					"last_changed TIMESTAMP, " +
+					"last_accessed TIMESTAMP" +
+					")",
+				PLAYER_METADATA_TABLE_NAME
+			)
+		),
+		SchemaMigration.of(
+			2,
+			"Add unique (player_name, item_id) index to the collection log cache",
+			// Concurrent MERGEs without an index could insert the same item twice; keep the newest row.
+			// The newest IDs are found in one grouped pass, since a per-row lookup would be quadratic without an index
+			String.format(
+				"DELETE FROM %1$s WHERE id NOT IN (" +
+					"SELECT MAX(id) FROM %1$s GROUP BY player_name, item_id" +
+					")",
+				COLLECTION_LOG_CACHE_TABLE_NAME
+			),
+			String.format(
+				"CREATE UNIQUE INDEX IF NOT EXISTS %1$s_player_item_idx ON %1$s(player_name, item_id)",
+				COLLECTION_LOG_CACHE_TABLE_NAME
+			)
+		),
+		SchemaMigration.of(
+			3,
+			"Add player_name and last_accessed indexes to the player metadata",
+			String.format(
+				"DELETE FROM %1$s WHERE id NOT IN (" +
+					"SELECT MAX(id) FROM %1$s GROUP BY player_name" +
+					")",
+				PLAYER_METADATA_TABLE_NAME
+			),
+			String.format(
+				"CREATE UNIQUE INDEX IF NOT EXISTS %1$s_player_name_idx ON %1$s(player_name)",
+				PLAYER_METADATA_TABLE_NAME
+			),
+			String.format(
+				"CREATE INDEX IF NOT EXISTS %1$s_last_accessed_idx ON %1$s(last_accessed)",
+				PLAYER_METADATA_TABLE_NAME
+			)
+		),
+		// Player and item names were repeated on every cached row; store each once and keep a narrow fact table
+		SchemaMigration.of(
+			4,
+			"Normalise the collection log cache into player, item and player item tables",
+			String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+					"player_name VARCHAR(255) NOT NULL UNIQUE, " +
+					"last_changed TIMESTAMP, " +
+					"last_accessed TIMESTAMP" +
+					")",
+				PLAYER_TABLE_NAME
+			),
+			String.format(
+				"CREATE INDEX IF NOT EXISTS %1$s_last_accessed_idx ON %1$s(last_accessed)",
+				PLAYER_TABLE_NAME
+			),
+			String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"item_id INT PRIMARY KEY, " +
+					"item_name VARCHAR(255)" +
+					")",
+				ITEM_TABLE_NAME
+			),
+			String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"player_id INT NOT NULL, " +
+					"item_id INT NOT NULL, " +
+					"item_count INT NOT NULL, " +
+					"PRIMARY KEY (player_id, item_id), " +
+					"FOREIGN KEY (player_id) REFERENCES %s(id) ON DELETE CASCADE" +
+					")",
+				PLAYER_ITEM_TABLE_NAME,
+				PLAYER_TABLE_NAME
+			),
+			String.format(
+				"INSERT INTO %s (player_name, last_changed, last_accessed) " +
+					"SELECT player_name, MAX(last_changed), MAX(last_accessed) FROM (" +
+					"SELECT player_name, last_changed, last_accessed FROM %s " +
+					"UNION ALL " +
+					"SELECT DISTINCT player_name, NULL, NULL FROM %s" +
+					") WHERE player_name IS NOT NULL GROUP BY player_name",
+				PLAYER_TABLE_NAME,
+				PLAYER_METADATA_TABLE_NAME,
+				COLLECTION_LOG_CACHE_TABLE_NAME
+			),
+			String.format(
+				"INSERT INTO %s (item_id, item_name) " +
+					"SELECT item_id, MAX(item_name) FROM %s WHERE item_id IS NOT NULL GROUP BY item_id",
+				ITEM_TABLE_NAME,
+				COLLECTION_LOG_CACHE_TABLE_NAME
+			),
+			String.format(
+				"INSERT INTO %s (player_id, item_id, item_count) " +
+					"SELECT p.id, c.item_id, MAX(c.item_count) FROM %s c " +
+					"INNER JOIN %s p ON p.player_name = c.player_name " +
+					"WHERE c.item_id IS NOT NULL AND c.item_count IS NOT NULL " +
+					"GROUP BY p.id, c.item_id",
+				PLAYER_ITEM_TABLE_NAME,
+				COLLECTION_LOG_CACHE_TABLE_NAME,
+				PLAYER_TABLE_NAME
+			),
+			String.format("DROP TABLE IF EXISTS %s", COLLECTION_LOG_CACHE_TABLE_NAME),
+			String.format("DROP TABLE IF EXISTS %s", PLAYER_METADATA_TABLE_NAME)
+		),
+		// One row per obtained item made each cached player cost kilobytes; pack each log into a single value.
+		// Item names are dropped along with the item table; wherever items are shown, names come from the game cache
+		new SchemaMigration(
+			5,
+			"Pack each player's items into a single collection_log value",
+			CollectionDatabaseMigrations::packPlayerItems
+		)
+	);
+
+	private static void packPlayerItems(Connection conn) throws SQLException
+	{
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.execute(String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+					"item_ids VARBINARY NOT NULL" +
+					")",
+				ITEM_ORDER_TABLE_NAME
+			));
+			stmt.execute(String.format(
+				"ALTER TABLE %s ADD COLUMN IF NOT EXISTS item_order_id INT REFERENCES %s(id)",
+				PLAYER_TABLE_NAME,
+				ITEM_ORDER_TABLE_NAME
+			));
+			stmt.execute(String.format(
+				"ALTER TABLE %s ADD COLUMN IF NOT EXISTS collection_log VARBINARY",
+				PLAYER_TABLE_NAME
+			));
+		}
+
+		// Already packed by an earlier attempt that failed after dropping the old tables
+		try (ResultSet rs = conn.getMetaData().getTables(null, null, PLAYER_ITEM_TABLE_NAME.toUpperCase(), null))
+		{
+			if (!rs.next())
+			{
+				return;
+			}
+		}
+
+		// The game cache isn't available here, so existing logs are packed by item ID until they are next saved
+		final Map<Integer, List<ObtainedCollectionItem>> playerItems = new HashMap<>();
+
+		try (
+			Statement stmt = conn.createStatement();
+			ResultSet rs = stmt.executeQuery(String.format(
+				"SELECT player_id, item_id, item_count FROM %s",
+				PLAYER_ITEM_TABLE_NAME
+			))
+		)
+		{
+			while (rs.next())
+			{
+				playerItems
+					.computeIfAbsent(rs.getInt("player_id"), id -> new ArrayList<>())
+					.add(new ObtainedCollectionItem(rs.getInt("item_id"), rs.getInt("item_count")));
+			}
+		}
+
+		try (PreparedStatement ps = conn.prepareStatement(String.format(
+			"UPDATE %s SET collection_log = ? WHERE id = ?",
+			PLAYER_TABLE_NAME
+		)))
+		{
+			for (Map.Entry<Integer, List<ObtainedCollectionItem>> entry : playerItems.entrySet())
+			{
+				ps.setBytes(1, CompactCollectionLog.encode(entry.getValue(), CollectionLogItemOrder.EMPTY));
+				ps.setInt(2, entry.getKey());
+				ps.addBatch();
+			}
+
+			ps.executeBatch();
+		}
+
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.execute(String.format("DROP TABLE IF EXISTS %s", PLAYER_ITEM_TABLE_NAME));
+			stmt.execute(String.format("DROP TABLE IF EXISTS %s", ITEM_TABLE_NAME));
+		}
+	}
+}
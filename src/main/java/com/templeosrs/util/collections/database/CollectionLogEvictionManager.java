@@ -0,0 +1,88 @@
+package com.templeosrs.util.collections.database;
+
+import com.templeosrs.TempleOSRSConfig;
+import com.templeosrs.util.collections.utils.PlayerNameUtils;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps the number of cached players within {@link TempleOSRSConfig#maxCachedPlayers()}.
+ * <p>
+ * Eviction runs on a background schedule so that lookups never pay for it; between runs the database may briefly
+ * hold a few more players than configured.
+ */
+@Slf4j
+@Singleton
+public class CollectionLogEvictionManager
+{
+	private static final long INITIAL_DELAY_MINUTES = 1;
+
+	private static final long EVICTION_INTERVAL_MINUTES = 10;
+
+	@Inject
+	private CollectionStore collectionStore;
+
+	@Inject
+	private TempleOSRSConfig config;
+
+	@Inject
+	private Client client;
+
+	@Inject
+	private ScheduledExecutorService scheduledExecutorService;
+
+	@Nullable
+	private ScheduledFuture<?> evictionTask;
+
+	public synchronized void startUp()
+	{
+		if (evictionTask != null)
+		{
+			return;
+		}
+
+		evictionTask = scheduledExecutorService.scheduleWithFixedDelay(
+			this::evict,
+			INITIAL_DELAY_MINUTES,
+			EVICTION_INTERVAL_MINUTES,
+			TimeUnit.MINUTES
+		);
+	}
+
+	public synchronized void shutDown()
+	{
+		if (evictionTask != null)
+		{
+			evictionTask.cancel(false);
+			evictionTask = null;
+		}
+	}
+
+	/**
+	 * Evicts the least recently accessed players beyond the configured limit, always keeping the local player.
+	 */
+	public void evict()
+	{
+		if (!collectionStore.isReady())
+		{
+			return;
+		}
+
+		final Player localPlayer = client.getLocalPlayer();
+		final String localName = localPlayer == null ? null : PlayerNameUtils.normalizePlayerName(localPlayer.getName());
+
+		final int evicted = collectionStore.evictLeastRecentlyAccessed(localName, config.maxCachedPlayers());
+
+		if (evicted > 0)
+		{
+			log.debug("🧹 Evicted {} cached player(s)", evicted);
+		}
+	}
+}
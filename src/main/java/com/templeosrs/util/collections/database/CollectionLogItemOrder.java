@@ -0,0 +1,100 @@
+package com.templeosrs.util.collections.database;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The canonical order of every item in the collection log, as read from the game cache.
+ * <p>
+ * Packed logs store one bit per position in this order, so a log can only be read back with the order it was
+ * written with. Orders are saved alongside the logs and a new one is added whenever the game adds items.
+ */
+public class CollectionLogItemOrder
+{
+	/**
+	 * Used before the game cache has been read; every item is stored by ID instead of position
+	 */
+	public static final CollectionLogItemOrder EMPTY = new CollectionLogItemOrder(new int[0]);
+
+	private final int[] itemIds;
+
+	private final Map<Integer, Integer> indexes;
+
+	public CollectionLogItemOrder(int[] itemIds)
+	{
+		this.itemIds = itemIds.clone();
+		this.indexes = new HashMap<>(itemIds.length * 2);
+
+		for (int i = 0; i < itemIds.length; i++)
+		{
+			indexes.putIfAbsent(itemIds[i], i);
+		}
+	}
+
+	public static CollectionLogItemOrder of(List<Integer> itemIds)
+	{
+		return new CollectionLogItemOrder(itemIds.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	public static CollectionLogItemOrder fromBytes(byte[] bytes)
+	{
+		final CompactCollectionLog.VarIntReader reader = new CompactCollectionLog.VarIntReader(bytes, 0);
+		final int[] itemIds = new int[reader.next()];
+
+		for (int i = 0; i < itemIds.length; i++)
+		{
+			itemIds[i] = reader.next();
+		}
+
+		return new CollectionLogItemOrder(itemIds);
+	}
+
+	public byte[] toBytes()
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(itemIds.length * 2 + 2);
+
+		CompactCollectionLog.writeVarInt(out, itemIds.length);
+
+		for (int itemId : itemIds)
+		{
+			CompactCollectionLog.writeVarInt(out, itemId);
+		}
+
+		return out.toByteArray();
+	}
+
+	public int size()
+	{
+		return itemIds.length;
+	}
+
+	public int getItemId(int index)
+	{
+		return itemIds[index];
+	}
+
+	/**
+	 * @return The item's position in the log, or -1 if it isn't part of this order
+	 */
+	public int indexOf(int itemId)
+	{
+		final Integer index = indexes.get(itemId);
+
+		return index == null ? -1 : index;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		return o instanceof CollectionLogItemOrder && Arrays.equals(itemIds, ((CollectionLogItemOrder) o).itemIds);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(itemIds);
+	}
+}
@@ -0,0 +1,30 @@
+package com.templeosrs.util.collections.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import java.sql.Timestamp;
+import java.util.Map;
+import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable, in-memory copy of a single player's cached collection log.
+ */
+@Value
+public class CollectionLogSnapshot
+{
+	/**
+	 * When the player's log last changed on TempleOSRS, or null if the player has never been saved
+	 */
+	@Nullable
+	Timestamp lastChanged;
+
+	/**
+	 * The player's obtained items, keyed by item ID
+	 */
+	Map<Integer, ObtainedCollectionItem> items;
+
+	public boolean hasItems()
+	{
+		return !items.isEmpty();
+	}
+}
@@ -0,0 +1,74 @@
+package com.templeosrs.util.collections.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A least-recently-used cache of {@link CollectionLogSnapshot}s, keyed by lower-case player name.
+ * <p>
+ * Every invalidation bumps a version number. Loaders read the version before querying the database and pass it
+ * back to {@link #put}, so a snapshot read before a concurrent write can never overwrite the invalidation.
+ */
+public class CollectionLogSnapshotCache
+{
+	private final IntSupplier capacity;
+
+	private final Map<String, CollectionLogSnapshot> snapshots = new LinkedHashMap<String, CollectionLogSnapshot>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CollectionLogSnapshot> eldest)
+		{
+			return size() > Math.max(1, capacity.getAsInt());
+		}
+	};
+
+	private long version = 0;
+
+	public CollectionLogSnapshotCache(IntSupplier capacity)
+	{
+		this.capacity = capacity;
+	}
+
+	@Nullable
+	public synchronized CollectionLogSnapshot get(String playerName)
+	{
+		return snapshots.get(playerName);
+	}
+
+	public synchronized long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Caches the snapshot, unless the cache has been invalidated since the given version was read.
+	 */
+	public synchronized void put(String playerName, CollectionLogSnapshot snapshot, long loadedAtVersion)
+	{
+		if (loadedAtVersion != version)
+		{
+			return;
+		}
+
+		snapshots.put(playerName, snapshot);
+	}
+
+	public synchronized void invalidate(String playerName)
+	{
+		version++;
+		snapshots.remove(playerName);
+	}
+
+	public synchronized void invalidateAll()
+	{
+		version++;
+		snapshots.clear();
+	}
+
+	public synchronized int size()
+	{
+		return snapshots.size();
+	}
+}
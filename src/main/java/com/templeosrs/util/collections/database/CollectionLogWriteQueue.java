@@ -0,0 +1,275 @@
+package com.templeosrs.util.collections.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Persists collection log upserts on a single background thread, so callers never wait on disk I/O.
+ * <p>
+ * Writes for the same player are coalesced while they wait, and everything queued when the writer wakes up is
+ * handed over as one group so it can be committed in a single transaction. Queued and in-flight writes stay visible
+ * through {@link #getPending(String)} until they have been committed.
+ * <p>
+ * Submitting never waits for the writer, as logs are streamed into the queue from HTTP dispatcher threads. The queue
+ * holds at most one write per player, and lookups are already paced by the rate limiter, so it stays small.
+ */
+@Slf4j
+public class CollectionLogWriteQueue
+{
+	@FunctionalInterface
+	public interface Writer
+	{
+		void write(Collection<PendingWrite> writes);
+	}
+
+	private final Writer writer;
+
+	private final Object lock = new Object();
+
+	private Map<String, PendingWrite> queued = new LinkedHashMap<>();
+
+	private Map<String, PendingWrite> inFlight = Collections.emptyMap();
+
+	@Nullable
+	private Thread writerThread;
+
+	private boolean running;
+
+	/**
+	 * @param writer Persists a group of writes; called on the writer thread only
+	 */
+	public CollectionLogWriteQueue(Writer writer)
+	{
+		this.writer = writer;
+	}
+
+	public void start()
+	{
+		synchronized (lock)
+		{
+			if (running)
+			{
+				return;
+			}
+
+			running = true;
+			writerThread = new Thread(this::run, "TempleOSRS Collection Log Writer");
+			writerThread.setDaemon(true);
+			writerThread.start();
+		}
+	}
+
+	/**
+	 * Writes everything still queued and stops the writer thread.
+	 */
+	public void stop()
+	{
+		final Thread thread;
+
+		synchronized (lock)
+		{
+			if (!running)
+			{
+				return;
+			}
+
+			running = false;
+			thread = writerThread;
+			writerThread = null;
+			lock.notifyAll();
+		}
+
+		try
+		{
+			thread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queues the items to be saved for the player, merging them into any write that is already waiting.
+	 * Writes on the calling thread if the queue hasn't been started.
+	 */
+	public void submit(String playerName, Collection<ObtainedCollectionItem> items, @Nullable Timestamp lastChanged)
+	{
+		final PendingWrite write = new PendingWrite(playerName, lastChanged);
+		write.merge(items, lastChanged);
+
+		synchronized (lock)
+		{
+			if (running)
+			{
+				final PendingWrite queuedWrite = queued.get(playerName);
+
+				if (queuedWrite == null)
+				{
+					queued.put(playerName, write);
+				}
+				else
+				{
+					queuedWrite.merge(write.getItems().values(), lastChanged);
+				}
+
+				lock.notifyAll();
+
+				return;
+			}
+		}
+
+		writer.write(Collections.singletonList(write));
+	}
+
+	/**
+	 * Returns the writes for the player that have not been committed yet, or null if there are none.
+	 */
+	@Nullable
+	public PendingWrite getPending(String playerName)
+	{
+		synchronized (lock)
+		{
+			final PendingWrite inFlightWrite = inFlight.get(playerName);
+			final PendingWrite queuedWrite = queued.get(playerName);
+
+			if (inFlightWrite == null && queuedWrite == null)
+			{
+				return null;
+			}
+
+			final PendingWrite pending = new PendingWrite(playerName, null);
+
+			for (PendingWrite write : new PendingWrite[]{inFlightWrite, queuedWrite})
+			{
+				if (write != null)
+				{
+					pending.merge(write.getItems().values(), write.getLastChanged());
+				}
+			}
+
+			return pending;
+		}
+	}
+
+	/**
+	 * Blocks until every write submitted before this call has been committed.
+	 */
+	public void flush()
+	{
+		synchronized (lock)
+		{
+			if (Thread.currentThread() == writerThread)
+			{
+				return;
+			}
+
+			while (running && (!queued.isEmpty() || !inFlight.isEmpty()))
+			{
+				try
+				{
+					lock.wait();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void run()
+	{
+		while (true)
+		{
+			final Map<String, PendingWrite> batch;
+
+			synchronized (lock)
+			{
+				while (running && queued.isEmpty())
+				{
+					try
+					{
+						lock.wait();
+					}
+					catch (InterruptedException e)
+					{
+						// Only stop() ends the writer, so that queued writes are never dropped
+					}
+				}
+
+				if (queued.isEmpty())
+				{
+					return;
+				}
+
+				batch = queued;
+				inFlight = batch;
+				queued = new LinkedHashMap<>();
+				lock.notifyAll();
+			}
+
+			try
+			{
+				log.debug("💾 Writing collection logs for {} player(s)", batch.size());
+
+				writer.write(batch.values());
+			}
+			catch (RuntimeException e)
+			{
+				log.warn("Error writing collection logs: {}", e.getMessage());
+			}
+			finally
+			{
+				synchronized (lock)
+				{
+					inFlight = Collections.emptyMap();
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The coalesced, not yet committed items for a single player.
+	 */
+	public static class PendingWrite
+	{
+		@Getter
+		private final String playerName;
+
+		@Getter
+		private final Map<Integer, ObtainedCollectionItem> items = new LinkedHashMap<>();
+
+		@Getter
+		@Nullable
+		private Timestamp lastChanged;
+
+		PendingWrite(String playerName, @Nullable Timestamp lastChanged)
+		{
+			this.playerName = playerName;
+			this.lastChanged = lastChanged;
+		}
+
+		void merge(Collection<ObtainedCollectionItem> newItems, @Nullable Timestamp newLastChanged)
+		{
+			for (ObtainedCollectionItem item : newItems)
+			{
+				items.put(item.getId(), item);
+			}
+
+			if (lastChanged == null || (newLastChanged != null && newLastChanged.after(lastChanged)))
+			{
+				lastChanged = newLastChanged;
+			}
+		}
+	}
+}
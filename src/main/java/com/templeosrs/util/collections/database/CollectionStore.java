@@ -0,0 +1,206 @@
+package com.templeosrs.util.collections.database;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+import com.google.inject.ImplementedBy;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local storage for the collection logs of the local player and any players looked up with chat commands.
+ * <p>
+ * Implementations only need to load and save whole logs; comparisons and category reads are built on top of
+ * {@link #getSnapshot(String)}. Player names are case-insensitive.
+ */
+@ImplementedBy(CollectionDatabase.class)
+public interface CollectionStore
+{
+	/**
+	 * Starts opening the store in the background. Use {@link #whenReady()} to wait for it.
+	 */
+	void startUp();
+
+	void shutDown();
+
+	/**
+	 * Blocks until every saved log has been written to disk.
+	 */
+	void flush();
+
+	/**
+	 * Completes once the store has been opened and is up-to-date, or exceptionally if it could not be opened.
+	 * A new future is returned after every {@link #startUp()}.
+	 */
+	CompletableFuture<Void> whenReady();
+
+	/**
+	 * @return False while the store is opening, or if it could not be opened
+	 */
+	default boolean isReady()
+	{
+		final CompletableFuture<Void> ready = whenReady();
+
+		return ready.isDone() && !ready.isCompletedExceptionally();
+	}
+
+	/**
+	 * Runs the task on the given executor once the store is ready, without blocking the calling thread.
+	 * The task is dropped if the store could not be opened.
+	 */
+	default void executeWhenReady(Executor executor, Runnable task)
+	{
+		executeWhenReady(executor, task, () -> {});
+	}
+
+	/**
+	 * Runs the task on the given executor once the store is ready, without blocking the calling thread.
+	 * If the store could not be opened, the task is dropped and the failure callback is run on the executor instead,
+	 * so callers can clear any state they set while waiting.
+	 */
+	default void executeWhenReady(Executor executor, Runnable task, Runnable onFailure)
+	{
+		whenReady().whenComplete((ignored, e) -> {
+			if (e != null)
+			{
+				LoggerFactory.getLogger(CollectionStore.class).warn("⚠️ Skipping a collection log task, as the local cache could not be opened: {}", e.getMessage());
+				executor.execute(onFailure);
+			}
+			else
+			{
+				executor.execute(task);
+			}
+		});
+	}
+
+	/**
+	 * Saves the given items for the player, replacing the counts of any items that were already saved.
+	 * The items are copied before this returns.
+	 *
+	 * @param playerName  The player name associated with the items
+	 * @param items       The items to save
+	 * @param lastChanged When the player's log last changed on TempleOSRS, or null to keep the saved time
+	 */
+	void upsertItemsBatch(@NotNull String playerName, @NotNull Collection<ObtainedCollectionItem> items, @Nullable Timestamp lastChanged);
+
+	/**
+	 * Sets the canonical order of every item in the collection log, as read from the game cache.
+	 * Stores that don't pack logs by position can ignore it.
+	 */
+	default void setItemOrder(List<Integer> itemIds)
+	{
+	}
+
+	/**
+	 * @return The player's saved log, or null if the store could not be read
+	 */
+	@Nullable
+	CollectionLogSnapshot getSnapshot(String playerName);
+
+	/**
+	 * Records that the player's log has just been viewed, so they are kept over less recently viewed players.
+	 */
+	void updateLastAccessed(String playerName);
+
+	/**
+	 * Deletes the least recently accessed players.
+	 *
+	 * @param keepPlayerName A player that is never evicted, usually the local player
+	 * @param maxPlayers     The number of other players to keep
+	 * @return The number of players that were evicted
+	 */
+	int evictLeastRecentlyAccessed(@Nullable String keepPlayerName, int maxPlayers);
+
+	/**
+	 * Deletes every saved item.
+	 */
+	void clearAll();
+
+	default boolean hasPlayerData(String playerName)
+	{
+		final CollectionLogSnapshot snapshot = getSnapshot(playerName);
+
+		return snapshot != null && snapshot.hasItems();
+	}
+
+	@Nullable
+	default Timestamp getLatestTimestamp(String playerName)
+	{
+		final CollectionLogSnapshot snapshot = getSnapshot(playerName);
+
+		return snapshot == null ? null : snapshot.getLastChanged();
+	}
+
+	/**
+	 * Computes which items in the given log have a higher count than the saved copy.
+	 *
+	 * @param playerName         The player whose saved log should be compared
+	 * @param collectionLogItems The item counts currently shown in the collection log
+	 * @return The items (and count increases) not yet saved, or null if the saved log could not be read
+	 */
+	@Nullable
+	default Multiset<Integer> getCollectionLogDiff(String playerName, Multiset<Integer> collectionLogItems)
+	{
+		final CollectionLogSnapshot snapshot = getSnapshot(playerName);
+
+		if (snapshot == null)
+		{
+			return null;
+		}
+
+		final Multiset<Integer> foundItems = HashMultiset.create();
+
+		for (ObtainedCollectionItem item : snapshot.getItems().values())
+		{
+			// Items that aren't in the log being compared can't contribute to the difference
+			if (collectionLogItems.contains(item.getId()))
+			{
+				foundItems.add(item.getId(), item.getCount());
+			}
+		}
+
+		return Multisets.difference(collectionLogItems, foundItems);
+	}
+
+	/**
+	 * Reads the player's obtained items from a single category, in the order they appear in the log tab.
+	 */
+	default Set<ObtainedCollectionItem> getItemsByCategory(String playerName, Set<Integer> categoryItems)
+	{
+		final CollectionLogSnapshot snapshot = getSnapshot(playerName);
+
+		Set<ObtainedCollectionItem> sortedItems = new LinkedHashSet<>();
+
+		if (snapshot == null)
+		{
+			return sortedItems;
+		}
+
+		// Sorts the cached log to match the order found in the log tab
+		for (int itemId : categoryItems)
+		{
+			final ObtainedCollectionItem item = snapshot.getItems().get(itemId);
+
+			if (item != null)
+			{
+				sortedItems.add(item);
+			}
+		}
+
+		if (snapshot.getLastChanged() != null)
+		{
+			updateLastAccessed(playerName);
+		}
+
+		return sortedItems;
+	}
+}
@@ -0,0 +1,324 @@
+package com.templeosrs.util.collections.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import java.io.ByteArrayOutputStream;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A player's obtained items packed into a few hundred bytes, keyed by item ID.
+ * <p>
+ * The layout is a bitset over a {@link CollectionLogItemOrder} marking which items are obtained, followed by the
+ * counts of those items as varints, followed by (ID, count) varint pairs for items missing from the order.
+ * Single items are read straight from the packed bytes, so reading one category never decodes the whole log.
+ * Item names are not stored.
+ */
+public class CompactCollectionLog extends AbstractMap<Integer, ObtainedCollectionItem>
+{
+	/**
+	 * Bumped whenever the packed layout changes
+	 */
+	private static final byte FORMAT_VERSION = 1;
+
+	private final byte[] data;
+
+	private final CollectionLogItemOrder order;
+
+	private final int bitsetOffset;
+
+	private final int bitsetLength;
+
+	private final int countsOffset;
+
+	private final int obtainedInOrder;
+
+	private final int extrasOffset;
+
+	private final int extrasCount;
+
+	@Nullable
+	private volatile Map<Integer, ObtainedCollectionItem> decodedItems;
+
+	/**
+	 * @param data  A log packed by {@link #encode(Collection, CollectionLogItemOrder)}
+	 * @param order The order the log was packed with
+	 * @throws IllegalArgumentException If the data was packed with an unknown layout
+	 */
+	public CompactCollectionLog(byte[] data, CollectionLogItemOrder order)
+	{
+		if (data.length == 0 || data[0] != FORMAT_VERSION)
+		{
+			throw new IllegalArgumentException("Unknown collection log format");
+		}
+
+		this.data = data;
+		this.order = order;
+
+		final VarIntReader reader = new VarIntReader(data, 1);
+
+		bitsetLength = reader.next();
+		bitsetOffset = reader.getPosition();
+		countsOffset = bitsetOffset + bitsetLength;
+
+		int obtained = 0;
+
+		for (int i = bitsetOffset; i < countsOffset; i++)
+		{
+			obtained += Integer.bitCount(data[i] & 0xFF);
+		}
+
+		obtainedInOrder = obtained;
+
+		reader.setPosition(countsOffset);
+		reader.skip(obtainedInOrder);
+
+		extrasCount = reader.next();
+		extrasOffset = reader.getPosition();
+	}
+
+	/**
+	 * Packs the given items against the given order.
+	 */
+	public static byte[] encode(Collection<ObtainedCollectionItem> items, CollectionLogItemOrder order)
+	{
+		final int[] counts = new int[order.size()];
+		final byte[] bitset = new byte[(order.size() + 7) / 8];
+		final List<ObtainedCollectionItem> extras = new ArrayList<>();
+		int bitsetLength = 0;
+
+		for (ObtainedCollectionItem item : items)
+		{
+			final int index = order.indexOf(item.getId());
+
+			if (index < 0)
+			{
+				extras.add(item);
+				continue;
+			}
+
+			bitset[index >> 3] |= 1 << (index & 7);
+			counts[index] = item.getCount();
+			bitsetLength = Math.max(bitsetLength, (index >> 3) + 1);
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(bitsetLength + items.size() + 8);
+
+		out.write(FORMAT_VERSION);
+		writeVarInt(out, bitsetLength);
+		out.write(bitset, 0, bitsetLength);
+
+		for (int index = 0; index < bitsetLength * 8; index++)
+		{
+			if ((bitset[index >> 3] & (1 << (index & 7))) != 0)
+			{
+				writeVarInt(out, counts[index]);
+			}
+		}
+
+		extras.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+		writeVarInt(out, extras.size());
+
+		for (ObtainedCollectionItem item : extras)
+		{
+			writeVarInt(out, item.getId());
+			writeVarInt(out, item.getCount());
+		}
+
+		return out.toByteArray();
+	}
+
+	@Override
+	public ObtainedCollectionItem get(Object key)
+	{
+		if (!(key instanceof Integer))
+		{
+			return null;
+		}
+
+		final Map<Integer, ObtainedCollectionItem> decoded = decodedItems;
+
+		if (decoded != null)
+		{
+			return decoded.get(key);
+		}
+
+		final int itemId = (Integer) key;
+		final int index = order.indexOf(itemId);
+
+		if (index >= 0 && (index >> 3) < bitsetLength)
+		{
+			final int bit = 1 << (index & 7);
+
+			if ((data[bitsetOffset + (index >> 3)] & bit) == 0)
+			{
+				return null;
+			}
+
+			// The item's count is preceded by one count for every obtained item before it
+			int rank = Integer.bitCount(data[bitsetOffset + (index >> 3)] & (bit - 1));
+
+			for (int i = bitsetOffset; i < bitsetOffset + (index >> 3); i++)
+			{
+				rank += Integer.bitCount(data[i] & 0xFF);
+			}
+
+			final VarIntReader reader = new VarIntReader(data, countsOffset);
+			reader.skip(rank);
+
+			return new ObtainedCollectionItem(itemId, reader.next());
+		}
+
+		final VarIntReader reader = new VarIntReader(data, extrasOffset);
+
+		for (int i = 0; i < extrasCount; i++)
+		{
+			final int extraItemId = reader.next();
+			final int count = reader.next();
+
+			if (extraItemId == itemId)
+			{
+				return new ObtainedCollectionItem(itemId, count);
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return get(key) != null;
+	}
+
+	@Override
+	public int size()
+	{
+		return obtainedInOrder + extrasCount;
+	}
+
+	@NotNull
+	@Override
+	public Set<Entry<Integer, ObtainedCollectionItem>> entrySet()
+	{
+		return decodeAll().entrySet();
+	}
+
+	private Map<Integer, ObtainedCollectionItem> decodeAll()
+	{
+		Map<Integer, ObtainedCollectionItem> decoded = decodedItems;
+
+		if (decoded != null)
+		{
+			return decoded;
+		}
+
+		decoded = new HashMap<>(size() * 2);
+
+		final VarIntReader reader = new VarIntReader(data, countsOffset);
+
+		for (int index = 0; index < bitsetLength * 8; index++)
+		{
+			if ((data[bitsetOffset + (index >> 3)] & (1 << (index & 7))) != 0)
+			{
+				final int itemId = order.getItemId(index);
+
+				decoded.put(itemId, new ObtainedCollectionItem(itemId, reader.next()));
+			}
+		}
+
+		reader.setPosition(extrasOffset);
+
+		for (int i = 0; i < extrasCount; i++)
+		{
+			final int itemId = reader.next();
+
+			decoded.put(itemId, new ObtainedCollectionItem(itemId, reader.next()));
+		}
+
+		decodedItems = decoded = Collections.unmodifiableMap(decoded);
+
+		return decoded;
+	}
+
+	static void writeVarInt(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.write(value);
+	}
+
+	/**
+	 * Reads unsigned LEB128 varints from a byte array.
+	 */
+	static class VarIntReader
+	{
+		private final byte[] data;
+
+		private int position;
+
+		VarIntReader(byte[] data, int position)
+		{
+			this.data = data;
+			this.position = position;
+		}
+
+		int getPosition()
+		{
+			return position;
+		}
+
+		void setPosition(int position)
+		{
+			this.position = position;
+		}
+
+		int next()
+		{
+			int value = 0;
+			int shift = 0;
+			byte b;
+
+			do
+			{
+				if (position >= data.length || shift > 28)
+				{
+					throw new IllegalArgumentException("Truncated or malformed varint");
+				}
+
+				b = data[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+
+			return value;
+		}
+
+		void skip(int count)
+		{
+			for (int i = 0; i < count; i++)
+			{
+				do
+				{
+					if (position >= data.length)
+					{
+						throw new IllegalArgumentException("Truncated varint");
+					}
+				}
+				while ((data[position++] & 0x80) != 0);
+			}
+		}
+	}
+}
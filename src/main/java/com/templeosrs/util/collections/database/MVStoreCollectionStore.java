@@ -0,0 +1,404 @@
+package com.templeosrs.util.collections.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.MVStoreException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stores each player's collection log as a single value in an H2 MVStore, skipping SQL parsing and per-item rows.
+ * <p>
+ * MVStore keeps recently used pages in memory and commits changes in the background, so no extra snapshot cache
+ * or write queue is needed. Access times are kept in a separate map so viewing a log doesn't rewrite it.
+ */
+@Slf4j
+@Singleton
+public class MVStoreCollectionStore implements CollectionStore
+{
+	private static final String STORE_FILE_NAME = "collection-logs.mv";
+
+	private static final String LOG_MAP_NAME = "collection_logs";
+
+	private static final String LAST_ACCESSED_MAP_NAME = "last_accessed";
+
+	/**
+	 * Bumped whenever the layout written by {@link #encode(CollectionLogSnapshot)} changes
+	 */
+	private static final byte FORMAT_VERSION = 1;
+
+	private static final long NO_TIMESTAMP = -1;
+
+	@Inject
+	private ScheduledExecutorService scheduledExecutorService;
+
+	private final File directory;
+
+	@Nullable
+	private MVStore store;
+
+	/**
+	 * Set once the store has been shut down, so an open that was still queued doesn't reopen it
+	 */
+	private boolean closed;
+
+	/**
+	 * Replaced on every {@link #startUp()}, so a restarted plugin waits for the store to be opened again
+	 */
+	private volatile CompletableFuture<Void> ready = new CompletableFuture<>();
+
+	@Inject
+	public MVStoreCollectionStore()
+	{
+		this(new File(RuneLite.RUNELITE_DIR, "templeosrs"));
+	}
+
+	/**
+	 * @param directory The directory that holds the store file
+	 */
+	public MVStoreCollectionStore(File directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * Opens the store on the executor; opening is quick, but a store that wasn't closed cleanly has to be recovered.
+	 */
+	@Override
+	public void startUp()
+	{
+		final CompletableFuture<Void> opened = new CompletableFuture<>();
+
+		synchronized (this)
+		{
+			closed = false;
+		}
+
+		ready = opened;
+		scheduledExecutorService.execute(() -> open(opened));
+	}
+
+	private synchronized void open(CompletableFuture<Void> opened)
+	{
+		if (closed)
+		{
+			opened.completeExceptionally(DataUtils.newMVStoreException(DataUtils.ERROR_CLOSED, "The collection log store was shut down before it was opened"));
+			return;
+		}
+
+		if (!directory.exists() && !directory.mkdirs())
+		{
+			log.warn("⚠️ Failed to create plugin directory at {}", directory.getAbsolutePath());
+		}
+
+		try
+		{
+			if (store == null)
+			{
+				store = new MVStore.Builder()
+					.fileName(new File(directory, STORE_FILE_NAME).getAbsolutePath())
+					.compress()
+					.open();
+			}
+
+			opened.complete(null);
+		}
+		catch (MVStoreException e)
+		{
+			log.warn("Error opening the collection log store: {}", e.getMessage());
+			opened.completeExceptionally(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> whenReady()
+	{
+		return ready;
+	}
+
+	@Override
+	public void shutDown()
+	{
+		close();
+	}
+
+	@Override
+	public void flush()
+	{
+		try
+		{
+			getStore().commit();
+		}
+		catch (MVStoreException e)
+		{
+			log.warn("Error committing the collection log store: {}", e.getMessage());
+		}
+	}
+
+	private synchronized void close()
+	{
+		closed = true;
+
+		if (store == null)
+		{
+			return;
+		}
+
+		try
+		{
+			store.close();
+		}
+		catch (MVStoreException e)
+		{
+			log.warn("Error closing the collection log store: {}", e.getMessage());
+		}
+		finally
+		{
+			store = null;
+		}
+	}
+
+	@Override
+	public synchronized void upsertItemsBatch(
+		@NotNull String playerName,
+		@NotNull Collection<ObtainedCollectionItem> items,
+		@Nullable Timestamp lastChanged
+	)
+	{
+		final String lowerPlayerName = playerName.toLowerCase();
+
+		try
+		{
+			final MVMap<String, byte[]> logs = getLogMap();
+			final byte[] savedValue = logs.get(lowerPlayerName);
+
+			final Map<Integer, ObtainedCollectionItem> mergedItems = new HashMap<>();
+			Timestamp mergedLastChanged = lastChanged;
+
+			if (savedValue != null)
+			{
+				final CollectionLogSnapshot savedSnapshot = decode(savedValue);
+
+				mergedItems.putAll(savedSnapshot.getItems());
+
+				if (mergedLastChanged == null)
+				{
+					mergedLastChanged = savedSnapshot.getLastChanged();
+				}
+			}
+
+			for (ObtainedCollectionItem item : items)
+			{
+				mergedItems.put(item.getId(), item);
+			}
+
+			logs.put(lowerPlayerName, encode(new CollectionLogSnapshot(mergedLastChanged, mergedItems)));
+			getLastAccessedMap().put(lowerPlayerName, System.currentTimeMillis());
+		}
+		catch (IOException | MVStoreException e)
+		{
+			log.warn("Error saving collection log for {}: {}", lowerPlayerName, e.getMessage());
+		}
+	}
+
+	@Nullable
+	@Override
+	public CollectionLogSnapshot getSnapshot(String playerName)
+	{
+		try
+		{
+			final byte[] value = getLogMap().get(playerName.toLowerCase());
+
+			if (value == null)
+			{
+				return new CollectionLogSnapshot(null, Collections.emptyMap());
+			}
+
+			return decode(value);
+		}
+		catch (IOException | MVStoreException e)
+		{
+			log.warn("Error loading cached collection log for {}: {}", playerName, e.getMessage());
+
+			return null;
+		}
+	}
+
+	@Override
+	public void updateLastAccessed(String playerName)
+	{
+		try
+		{
+			getLastAccessedMap().put(playerName.toLowerCase(), System.currentTimeMillis());
+		}
+		catch (MVStoreException e)
+		{
+			log.warn("Error updating last accessed time for {}: {}", playerName, e.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized int evictLeastRecentlyAccessed(@Nullable String keepPlayerName, int maxPlayers)
+	{
+		try
+		{
+			final MVMap<String, byte[]> logs = getLogMap();
+			final MVMap<String, Long> lastAccessed = getLastAccessedMap();
+			final String keepLowerPlayerName = keepPlayerName == null ? "" : keepPlayerName.toLowerCase();
+
+			final List<String> playerNames = new ArrayList<>();
+
+			for (String playerName : logs.keySet())
+			{
+				if (!playerName.equals(keepLowerPlayerName))
+				{
+					playerNames.add(playerName);
+				}
+			}
+
+			if (playerNames.size() <= maxPlayers)
+			{
+				return 0;
+			}
+
+			playerNames.sort(Comparator.comparingLong(
+				(String playerName) -> lastAccessed.getOrDefault(playerName, Long.MIN_VALUE)
+			).reversed());
+
+			final List<String> evictedPlayerNames = playerNames.subList(Math.max(maxPlayers, 0), playerNames.size());
+
+			for (String playerName : evictedPlayerNames)
+			{
+				log.debug("🧹 Evicted cached player: {}", playerName);
+				logs.remove(playerName);
+				lastAccessed.remove(playerName);
+			}
+
+			return evictedPlayerNames.size();
+		}
+		catch (MVStoreException e)
+		{
+			log.warn("Error evicting old players: {}", e.getMessage());
+
+			return 0;
+		}
+	}
+
+	@Override
+	public synchronized void clearAll()
+	{
+		try
+		{
+			getLogMap().clear();
+			getLastAccessedMap().clear();
+		}
+		catch (MVStoreException e)
+		{
+			log.warn("Error clearing all items: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * @throws MVStoreException If the store hasn't been opened yet, or has been shut down
+	 */
+	private synchronized MVStore getStore()
+	{
+		if (store == null)
+		{
+			throw DataUtils.newMVStoreException(DataUtils.ERROR_CLOSED, "The collection log store is not open");
+		}
+
+		return store;
+	}
+
+	private MVMap<String, byte[]> getLogMap()
+	{
+		return getStore().openMap(LOG_MAP_NAME);
+	}
+
+	private MVMap<String, Long> getLastAccessedMap()
+	{
+		return getStore().openMap(LAST_ACCESSED_MAP_NAME);
+	}
+
+	private static byte[] encode(CollectionLogSnapshot snapshot) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			out.writeByte(FORMAT_VERSION);
+			out.writeLong(snapshot.getLastChanged() == null ? NO_TIMESTAMP : snapshot.getLastChanged().getTime());
+			out.writeInt(snapshot.getItems().size());
+
+			for (ObtainedCollectionItem item : snapshot.getItems().values())
+			{
+				out.writeInt(item.getId());
+				out.writeInt(item.getCount());
+				out.writeBoolean(item.getName() != null);
+
+				if (item.getName() != null)
+				{
+					out.writeUTF(item.getName());
+				}
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static CollectionLogSnapshot decode(byte[] value) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value)))
+		{
+			final byte formatVersion = in.readByte();
+
+			if (formatVersion != FORMAT_VERSION)
+			{
+				throw new IOException("Unknown collection log format " + formatVersion);
+			}
+
+			final long lastChanged = in.readLong();
+			final int itemCount = in.readInt();
+			final Map<Integer, ObtainedCollectionItem> items = new HashMap<>(itemCount * 2);
+
+			for (int i = 0; i < itemCount; i++)
+			{
+				final int itemId = in.readInt();
+				final int count = in.readInt();
+
+				items.put(
+					itemId,
+					in.readBoolean() ? new ObtainedCollectionItem(itemId, in.readUTF(), count) : new ObtainedCollectionItem(itemId, count)
+				);
+			}
+
+			return new CollectionLogSnapshot(
+				lastChanged == NO_TIMESTAMP ? null : new Timestamp(lastChanged),
+				Collections.unmodifiableMap(items)
+			);
+		}
+	}
+}
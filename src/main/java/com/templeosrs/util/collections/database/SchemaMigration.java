@@ -0,0 +1,42 @@
+package com.templeosrs.util.collections.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import lombok.Value;
+
+/**
+ * A single, ordered change to the local database schema.
+ */
+@Value
+public class SchemaMigration
+{
+	int version;
+
+	String description;
+
+	Step step;
+
+	@FunctionalInterface
+	public interface Step
+	{
+		void apply(Connection conn) throws SQLException;
+	}
+
+	/**
+	 * Builds a migration that runs the given statements in order.
+	 * Statements should be idempotent, as H2 commits implicitly after most DDL.
+	 */
+	public static SchemaMigration of(int version, String description, String... statements)
+	{
+		return new SchemaMigration(version, description, conn -> {
+			try (Statement stmt = conn.createStatement())
+			{
+				for (String sql : statements)
+				{
+					stmt.execute(sql);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,129 @@
+package com.templeosrs.util.collections.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies {@link SchemaMigration}s in version order, recording each applied version in the schema version table.
+ */
+@Slf4j
+public class SchemaMigrator
+{
+	static final String SCHEMA_VERSION_TABLE_NAME = "schema_version";
+
+	/**
+	 * Applies every migration newer than the current schema version.
+	 *
+	 * @param conn       The connection to migrate
+	 * @param migrations The known migrations, in any order
+	 * @return The schema version after migrating
+	 */
+	public static int migrate(Connection conn, List<SchemaMigration> migrations) throws SQLException
+	{
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.executeUpdate(String.format(
+				"CREATE TABLE IF NOT EXISTS %s(" +
+					"version INT PRIMARY KEY, " +
+					"description VARCHAR(255), " +
+					"applied_at TIMESTAMP" +
+					")",
+				SCHEMA_VERSION_TABLE_NAME
+			));
+		}
+
+		final int startingVersion = getSchemaVersion(conn);
+		int currentVersion = startingVersion;
+
+		final List<SchemaMigration> pendingMigrations = migrations
+			.stream()
+			.filter(migration -> migration.getVersion() > startingVersion)
+			.sorted(Comparator.comparingInt(SchemaMigration::getVersion))
+			.collect(Collectors.toList());
+
+		final boolean autoCommit = conn.getAutoCommit();
+
+		try
+		{
+			conn.setAutoCommit(false);
+
+			for (SchemaMigration migration : pendingMigrations)
+			{
+				log.debug("🛠️ Applying schema migration {}: {}", migration.getVersion(), migration.getDescription());
+
+				try (PreparedStatement ps = conn.prepareStatement(
+					String.format("INSERT INTO %s (version, description, applied_at) VALUES (?, ?, ?)", SCHEMA_VERSION_TABLE_NAME)
+				))
+				{
+					migration.getStep().apply(conn);
+
+					ps.setInt(1, migration.getVersion());
+					ps.setString(2, migration.getDescription());
+					ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+					ps.executeUpdate();
+
+					conn.commit();
+				}
+				catch (SQLException e)
+				{
+					conn.rollback();
+
+					throw new SQLException(
+						String.format("Schema migration %d (%s) failed: %s", migration.getVersion(), migration.getDescription(), e.getMessage()),
+						e
+					);
+				}
+
+				currentVersion = migration.getVersion();
+			}
+		}
+		finally
+		{
+			conn.setAutoCommit(autoCommit);
+		}
+
+		return currentVersion;
+	}
+
+	public static int getSchemaVersion(Connection conn) throws SQLException
+	{
+		try (
+			Statement stmt = conn.createStatement();
+			ResultSet rs = stmt.executeQuery(String.format("SELECT COALESCE(MAX(version), 0) FROM %s", SCHEMA_VERSION_TABLE_NAME))
+		)
+		{
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	/**
+	 * Adds a column to an existing table, for use by migrations that need to widen a table written by older versions.
+	 */
+	public static void addColumnIfNotExists(Connection conn, String table, String column, String type) throws SQLException
+	{
+		String checkQuery = "SELECT * FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?";
+		try (PreparedStatement ps = conn.prepareStatement(checkQuery))
+		{
+			ps.setString(1, table.toUpperCase());
+			ps.setString(2, column.toUpperCase());
+			try (ResultSet rs = ps.executeQuery())
+			{
+				if (!rs.next())
+				{
+					try (Statement stmt = conn.createStatement())
+					{
+						stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+					}
+				}
+			}
+		}
+	}
+}
@@ -1,123 +1,172 @@
 package com.templeosrs.util.collections.parser;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.templeosrs.util.api.APIError;
-import com.templeosrs.util.collections.data.CollectionLogResponse;
 import com.templeosrs.util.collections.data.ObtainedCollectionItem;
-import com.templeosrs.util.collections.database.CollectionDatabase;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.sql.Statement;
+import com.templeosrs.util.collections.database.CollectionStore;
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.Timestamp;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 
 @Slf4j
 @Singleton
 public class CollectionParser
 {
+	/**
+	 * How many parsed items are handed to the store at a time
+	 */
+	private static final int STORE_BATCH_SIZE = 250;
+
 	@Inject
 	private Gson gson;
 
+	@Inject
+	private CollectionStore collectionStore;
+
 	/**
-	 * Parses the Temple API response to a map of collection log items
+	 * Parses a Temple API response as it is read and saves its items to the collection store in batches.
+	 * <p>
+	 * Batches are saved without a timestamp, and the player's last changed time is only updated with the final
+	 * batch, so a partially saved log is never treated as up to date.
 	 *
 	 * @param rawUsername The username associated with the response
-	 * @param json        The raw JSON response from the Player Collection Log endpoint
+	 * @param json        The JSON response body from the Player Collection Log endpoint
+	 * @throws IOException If the response could not be read or parsed, or holds an API error
 	 */
-	public void parseAndStore(String rawUsername, String json)
+	public void parseAndStore(String rawUsername, Reader json) throws IOException
 	{
 		final String username = rawUsername.toLowerCase();
 
 		log.debug("🧹 Starting parse() for user: {}...", username);
 
-		CollectionLogResponse collectionLogResponse;
-
-		// Log the raw JSON for debugging purposes
-		log.debug("Raw JSON: {}", json);
-
 		try
 		{
-			// Directly parse the JSON string using Gson
-			collectionLogResponse = gson.fromJson(json, CollectionLogResponse.class);
+			final JsonReader reader = new JsonReader(json);
+
+			reader.beginObject();
+
+			while (reader.hasNext())
+			{
+				switch (reader.nextName())
+				{
+					case "data":
+						parseAndStoreData(username, reader);
+						break;
+					case "error":
+						final APIError error = gson.fromJson(reader, APIError.class);
+
+						logError(username, error);
+
+						// Stop further processing for this player
+						throw new IOException(String.format("API error for %s: %s", username, error.getMessage()));
+					default:
+						reader.skipValue();
+				}
+			}
+
+			reader.endObject();
 		}
-		catch (JsonSyntaxException e)
+		catch (IllegalStateException | IllegalArgumentException | JsonParseException e)
 		{
+			// Covers malformed timestamps and numbers, as well as JSON of the wrong shape
 			log.error("❌ Failed to parse JSON for {}: {}", username, e.getMessage());
 
-			return;
+			throw new IOException(String.format("Failed to parse the collection log for %s", username), e);
 		}
-		catch (Exception e)
-		{
-			log.error("❌ Unexpected error while parsing JSON for {}: {}", username, e.getMessage());
+	}
 
-			return;
-		}
+	private void parseAndStoreData(String username, JsonReader reader) throws IOException
+	{
+		final List<ObtainedCollectionItem> batch = new ArrayList<>(STORE_BATCH_SIZE);
+		Timestamp lastChanged = null;
+		int itemCount = 0;
 
-		CollectionLogResponse.Data data = collectionLogResponse.getData();
-		APIError error = collectionLogResponse.getError();
+		reader.beginObject();
 
-		// Handle error response
-		if (error != null)
+		while (reader.hasNext())
 		{
-			String errorMessage = error.getMessage();
+			final String name = reader.nextName();
 
-			if (errorMessage.contains("Player has not synced"))
+			if (reader.peek() == JsonToken.NULL)
 			{
-				log.warn("⚠️ Player {} has not synced their collection log yet.", username);
+				reader.nextNull();
+				continue;
 			}
-			else
+
+			switch (name)
 			{
-				log.warn("⚠️ API error for {}: {}", username, errorMessage);
+				case "last_changed":
+					lastChanged = Timestamp.valueOf(reader.nextString());
+					break;
+				case "items":
+					reader.beginArray();
+
+					while (reader.hasNext())
+					{
+						final ObtainedCollectionItem item = gson.fromJson(reader, ObtainedCollectionItem.class);
+
+						log.debug("➡️ Queuing: {} x{} @ {}", item.getId(), item.getCount(), item.getDate());
+
+						batch.add(item);
+						itemCount++;
+
+						if (batch.size() >= STORE_BATCH_SIZE)
+						{
+							store(username, batch, null);
+						}
+					}
+
+					reader.endArray();
+					break;
+				default:
+					reader.skipValue();
 			}
-
-			return; // Stop further processing for this player
 		}
 
-		// Handle success response
-		if (data != null)
-		{
-			Set<ObtainedCollectionItem> itemList = new HashSet<>();
+		reader.endObject();
 
-			for (ObtainedCollectionItem item : data.getItems())
-			{
-				log.debug("➡️ Queuing: {} x{} @ {}", item.getName(), item.getCount(), item.getDate());
-				itemList.add(item);
-			}
+		log.debug("✅ Parsed {} items for {}.", itemCount, username);
 
-			log.debug("✅ Parsed {} items for {}.", itemList.size(), username);
+		if (itemCount == 0)
+		{
+			log.warn("⚠️ No items found to store for {}", username);
 
-			if (itemList.isEmpty())
-			{
-				log.warn("⚠️ No items found to store for {}", username);
+			return;
+		}
 
-				return;
-			}
+		store(username, batch, lastChanged);
 
-			log.debug("🧹 Starting store() for user: {}...", username);
+		log.debug("✅ Parsed and inserted {} items total for {}.", itemCount, username);
+	}
 
-			CollectionDatabase.upsertItemsBatch(username, itemList, Timestamp.valueOf(data.getLastChanged()));
+	private void store(String username, List<ObtainedCollectionItem> batch, @Nullable Timestamp lastChanged)
+	{
+		log.debug("🧹 Starting store() of {} items for user: {}...", batch.size(), username);
 
-			int itemCount = itemList.size();
+		collectionStore.upsertItemsBatch(username, batch, lastChanged);
+		batch.clear();
+	}
 
-			log.debug("✅ Parsed and inserted {} items total for {}.", itemCount, username);
+	private void logError(String username, APIError error)
+	{
+		String errorMessage = error.getMessage();
 
-			// ✅ Manually shut down the database after insert
-			try (Connection conn = CollectionDatabase.getConnection();
-				 Statement stmt = conn.createStatement()
-			)
-			{
-				stmt.execute("SHUTDOWN");
-				log.debug("🚗 Manually closed H2 database after sync.");
-			}
-			catch (SQLException e)
-			{
-				log.error("⚠️ Error while trying to shut down the database", e);
-			}
+		if (errorMessage.contains("Player has not synced"))
+		{
+			log.warn("⚠️ Player {} has not synced their collection log yet.", username);
+		}
+		else
+		{
+			log.warn("⚠️ API error for {}: {}", username, errorMessage);
 		}
 	}
-}
\ No newline at end of file
+}
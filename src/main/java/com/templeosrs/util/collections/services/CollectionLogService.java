@@ -1,9 +1,8 @@
 package com.templeosrs.util.collections.services;
 
+import com.templeosrs.util.api.RequestPriority;
 import com.templeosrs.util.collections.CollectionLogRequestManager;
-import com.templeosrs.util.collections.database.CollectionDatabase;
-import com.templeosrs.util.collections.parser.CollectionParser;
-import com.templeosrs.util.collections.utils.PlayerNameUtils;
+import com.templeosrs.util.collections.database.CollectionStore;
 import java.sql.Timestamp;
 import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
@@ -25,7 +24,7 @@ public class CollectionLogService
 	private Client client;
 
 	@Inject
-	private CollectionParser collectionParser;
+	private CollectionStore collectionStore;
 
 	/**
 	 * Compares the timestamp of the latest collection log to the saved data.
@@ -35,7 +34,7 @@ public class CollectionLogService
 	 */
 	public boolean isDataFresh(@NotNull String username, @NotNull String lastChanged)
 	{
-		Timestamp dbTimestamp = CollectionDatabase.getLatestTimestamp(username);
+		Timestamp dbTimestamp = collectionStore.getLatestTimestamp(username);
 		Timestamp apiTimestamp = Timestamp.valueOf(lastChanged);
 
 		log.debug("🕒 [Compare] {} | DB: {} | API: {}", username, dbTimestamp, apiTimestamp);
@@ -48,7 +47,7 @@ public class CollectionLogService
 	 */
 	public void syncCollectionLog()
 	{
-		scheduledExecutorService.execute(() -> {
+		collectionStore.executeWhenReady(scheduledExecutorService, () -> {
 			log.debug("🔄 Starting syncCollectionLog()...");
 
 			if (client.getLocalPlayer() == null)
@@ -61,21 +60,15 @@ public class CollectionLogService
 
 			log.debug("👤 Detected username: {}", username);
 
-			String json = collectionLogRequestManager.getPlayerCollectionLog(username);
+			collectionLogRequestManager.fetchAndStorePlayerCollectionLog(username, RequestPriority.LOCAL_PLAYER).thenAccept(fetched -> {
+				if (!fetched)
+				{
+					log.error("❌ Empty or null response from Temple API");
+					return;
+				}
 
-			log.debug("📥 Fetched JSON: {} characters", json != null ? json.length() : 0);
-
-			if (json == null || json.isEmpty())
-			{
-				log.error("❌ Empty or null response from Temple API");
-				return;
-			}
-
-			log.debug("🧩 Parsing and storing JSON...");
-
-			collectionParser.parseAndStore(PlayerNameUtils.normalizePlayerName(username), json);
-
-			log.debug("✅ Parsing complete.");
+				log.debug("✅ Parsing complete.");
+			});
 		});
 	}
 }
@@ -0,0 +1,65 @@
+package com.templeosrs.api;
+
+import com.templeosrs.util.api.CircuitBreakers;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakersTest
+{
+	private static final String ENDPOINT = "/api/collection-log/sync_collection.php";
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	private final CircuitBreakers circuitBreakers = new CircuitBreakers(now::get);
+
+	@Test
+	@DisplayName("Ensure an endpoint is paused after repeated failures and probed once it has cooled down")
+	void opensAndProbes()
+	{
+		circuitBreakers.recordFailure(ENDPOINT);
+		circuitBreakers.recordFailure(ENDPOINT);
+
+		assertDoesNotThrow(() -> circuitBreakers.checkAllowed(ENDPOINT));
+
+		circuitBreakers.recordFailure(ENDPOINT);
+
+		assertThrows(CircuitBreakers.CircuitOpenException.class, () -> circuitBreakers.checkAllowed(ENDPOINT));
+		assertDoesNotThrow(() -> circuitBreakers.checkAllowed("/api/player_info.php"));
+
+		now.addAndGet(30_000);
+
+		// Only one probe is let through while it is in flight
+		assertDoesNotThrow(() -> circuitBreakers.checkAllowed(ENDPOINT));
+		assertThrows(CircuitBreakers.CircuitOpenException.class, () -> circuitBreakers.checkAllowed(ENDPOINT));
+
+		circuitBreakers.recordSuccess(ENDPOINT);
+
+		assertDoesNotThrow(() -> circuitBreakers.checkAllowed(ENDPOINT));
+	}
+
+	@Test
+	@DisplayName("Ensure a failed probe pauses the endpoint for longer")
+	void failedProbeBacksOff()
+	{
+		for (int i = 0; i < 3; i++)
+		{
+			circuitBreakers.recordFailure(ENDPOINT);
+		}
+
+		now.addAndGet(30_000);
+
+		assertDoesNotThrow(() -> circuitBreakers.checkAllowed(ENDPOINT));
+
+		circuitBreakers.recordFailure(ENDPOINT);
+		now.addAndGet(30_000);
+
+		assertThrows(CircuitBreakers.CircuitOpenException.class, () -> circuitBreakers.checkAllowed(ENDPOINT));
+
+		now.addAndGet(30_000);
+
+		assertDoesNotThrow(() -> circuitBreakers.checkAllowed(ENDPOINT));
+	}
+}
@@ -0,0 +1,86 @@
+package com.templeosrs.api;
+
+import com.templeosrs.util.api.RequestPriority;
+import com.templeosrs.util.api.RequestRateLimiter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestRateLimiterTest
+{
+	private final RequestRateLimiter rateLimiter = new RequestRateLimiter();
+
+	@AfterEach
+	void shutDown()
+	{
+		rateLimiter.shutDown();
+	}
+
+	@Test
+	@DisplayName("Ensure queued uploads are let through before queued lookups")
+	void grantsByPriority() throws Exception
+	{
+		// Use up the burst so the following requests have to queue
+		while (rateLimiter.acquire(RequestPriority.SPECULATIVE).isDone())
+		{
+		}
+
+		final List<RequestPriority> order = Collections.synchronizedList(new ArrayList<>());
+		final CompletableFuture<Void> lookup = rateLimiter.acquire(RequestPriority.LOOKUP);
+		final CompletableFuture<Void> upload = rateLimiter.acquire(RequestPriority.UPLOAD);
+
+		// Recorded by the grants themselves, so waiting on these waits for the order to be written
+		final CompletableFuture<Void> lookupGranted = lookup.thenRun(() -> order.add(RequestPriority.LOOKUP));
+		final CompletableFuture<Void> uploadGranted = upload.thenRun(() -> order.add(RequestPriority.UPLOAD));
+
+		assertFalse(upload.isDone());
+
+		CompletableFuture.allOf(lookupGranted, uploadGranted).get(5, TimeUnit.SECONDS);
+
+		assertEquals(RequestPriority.UPLOAD, order.get(0));
+		assertEquals(RequestPriority.LOOKUP, order.get(1));
+		assertTrue(rateLimiter.getStats().get(RequestPriority.UPLOAD).getGranted() > 0);
+	}
+
+	@Test
+	@DisplayName("Ensure cancelled requests give up their place in the queue")
+	void skipsCancelledRequests() throws Exception
+	{
+		while (rateLimiter.acquire(RequestPriority.SPECULATIVE).isDone())
+		{
+		}
+
+		final CompletableFuture<Void> cancelled = rateLimiter.acquire(RequestPriority.UPLOAD);
+		final CompletableFuture<Void> lookup = rateLimiter.acquire(RequestPriority.LOOKUP);
+
+		cancelled.cancel(false);
+		lookup.get(5, TimeUnit.SECONDS);
+
+		assertEquals(0, rateLimiter.getStats().get(RequestPriority.UPLOAD).getGranted());
+	}
+
+	@Test
+	@DisplayName("Ensure requests still waiting when the limiter shuts down are cancelled, not let through")
+	void cancelsWaitingRequestsOnShutDown()
+	{
+		while (rateLimiter.acquire(RequestPriority.SPECULATIVE).isDone())
+		{
+		}
+
+		final CompletableFuture<Void> waiting = rateLimiter.acquire(RequestPriority.UPLOAD);
+
+		rateLimiter.shutDown();
+
+		assertThrows(CancellationException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+	}
+}
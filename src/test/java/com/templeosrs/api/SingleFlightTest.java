@@ -0,0 +1,57 @@
+package com.templeosrs.api;
+
+import com.templeosrs.util.api.SingleFlight;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest
+{
+	@Test
+	@DisplayName("Ensure overlapping calls for the same key share one call")
+	void sharesInFlightCall() throws Exception
+	{
+		final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		final AtomicInteger calls = new AtomicInteger();
+		final CompletableFuture<Void> release = new CompletableFuture<>();
+
+		final CompletableFuture<Integer> first = singleFlight.share("player", () -> release.thenApply(ignored -> calls.incrementAndGet()));
+
+		// The first call is held until released, so this caller has to join it
+		final CompletableFuture<Integer> second = singleFlight.share("player", () -> CompletableFuture.completedFuture(calls.incrementAndGet()));
+
+		release.complete(null);
+
+		assertEquals(1, first.get(5, TimeUnit.SECONDS));
+		assertEquals(1, second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, calls.get());
+
+		// Nothing is kept once the call has finished
+		assertEquals(2, singleFlight.share("player", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@DisplayName("Ensure exceptions are passed on unchanged")
+	void passesOnExceptions()
+	{
+		final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+		final CompletableFuture<Integer> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new IOException("HTTP error"));
+
+		final ExecutionException httpError = assertThrows(ExecutionException.class, () -> singleFlight.share("player", () -> failed).get());
+		assertTrue(httpError.getCause() instanceof IOException);
+
+		final ExecutionException noProfile = assertThrows(ExecutionException.class, () -> singleFlight.share("player", () -> {
+			throw new NullPointerException("Player has no TempleOSRS profile");
+		}).get());
+		assertTrue(noProfile.getCause() instanceof NullPointerException);
+	}
+}
@@ -0,0 +1,269 @@
+package com.templeosrs.api;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.templeosrs.util.TempleService;
+import com.templeosrs.util.api.HttpMetrics;
+import com.templeosrs.util.api.RequestPriority;
+import com.templeosrs.util.api.RequestRateLimiter;
+import com.templeosrs.util.api.TempleExecutor;
+import com.templeosrs.util.api.TempleHttpClient;
+import com.templeosrs.util.clan.TempleClan;
+import com.templeosrs.util.collections.CollectionLogRequestManager;
+import com.templeosrs.util.collections.autosync.PlayerDataSync;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.data.PlayerData;
+import com.templeosrs.util.collections.data.PlayerDataSubmission;
+import com.templeosrs.util.collections.database.CollectionLogSnapshot;
+import com.templeosrs.util.collections.database.CollectionStore;
+import com.templeosrs.util.comp.TempleCompetition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TempleApiEndToEndTest
+{
+	private TempleApiStandIn standIn;
+
+	private File directory;
+
+	private ScheduledExecutorService executor;
+
+	private Injector injector;
+
+	private CollectionStore collectionStore;
+
+	@BeforeEach
+	void startStandIn() throws IOException
+	{
+		standIn = new TempleApiStandIn();
+		directory = Files.createTempDirectory("templeosrs-stand-in").toFile();
+		executor = Executors.newSingleThreadScheduledExecutor();
+		injector = Guice.createInjector(new TempleApiStandInModule(standIn, directory, executor));
+
+		collectionStore = injector.getInstance(CollectionStore.class);
+		collectionStore.startUp();
+		collectionStore.whenReady().join();
+	}
+
+	@AfterEach
+	void stopStandIn() throws IOException
+	{
+		collectionStore.shutDown();
+		injector.getInstance(RequestRateLimiter.class).shutDown();
+		injector.getInstance(TempleHttpClient.class).shutDown();
+		injector.getInstance(TempleExecutor.class).shutDown();
+		executor.shutdownNow();
+		standIn.close();
+	}
+
+	@Test
+	@DisplayName("Ensure a !col lookup downloads the player's log into the collection store")
+	void storesLookedUpCollectionLog() throws Exception
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		assertEquals("CousinOfKos", requestManager.getPlayerInfo("cousinofkos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS).getPlayerNameWithCapitalization());
+		assertTrue(requestManager.fetchAndStorePlayerCollectionLog("cousinofkos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS));
+
+		collectionStore.flush();
+
+		final CollectionLogSnapshot snapshot = collectionStore.getSnapshot("cousinofkos");
+
+		assertNotNull(snapshot);
+		assertEquals(8, snapshot.getItems().size());
+		assertEquals(3, snapshot.getItems().get(22006).getCount());
+		assertNotNull(snapshot.getLastChanged());
+	}
+
+	@Test
+	@DisplayName("Ensure a !col lookup fails when the log can't be read")
+	void failsLookupOfUnreadableCollectionLog() throws Exception
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		standIn.setFixture("player_collection_log", "{\"error\":{\"Code\":402,\"Message\":\"Player has not synced\"}}");
+
+		assertFalse(requestManager.fetchAndStorePlayerCollectionLog("cousinofkos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS));
+
+		standIn.setFixture("player_collection_log", "{\"data\":{\"last_changed\":\"yesterday\",\"items\":[]}}");
+
+		assertFalse(requestManager.fetchAndStorePlayerCollectionLog("cousinofkos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@DisplayName("Ensure repeated lookups of a player are answered from the freshness cache until they sync")
+	void reusesRecentPlayerInfo() throws Exception
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		requestManager.getPlayerInfo("CousinOfKos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS);
+		requestManager.getPlayerInfo("cousinofkos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS);
+
+		assertEquals(1, standIn.getRequestCount("player_info"));
+
+		requestManager.uploadObtainedCollectionLogItems(new PlayerDataSync("CousinOfKos", "STANDARD", 1234567890, Collections.emptySet())).get(10, TimeUnit.SECONDS);
+		requestManager.getPlayerInfo("CousinOfKos", RequestPriority.LOOKUP).get(10, TimeUnit.SECONDS);
+
+		assertEquals(2, standIn.getRequestCount("player_info"));
+	}
+
+	@Test
+	@DisplayName("Ensure newly obtained items are uploaded to the sync endpoint")
+	void uploadsNewItems() throws Exception
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		final PlayerDataSync sync = new PlayerDataSync(
+			"CousinOfKos",
+			"STANDARD",
+			1234567890,
+			Collections.singleton(new ObtainedCollectionItem(24670, "Twisted ancestral colour kit", 1))
+		);
+
+		assertTrue(requestManager.uploadObtainedCollectionLogItems(sync).get(10, TimeUnit.SECONDS).contains("Collection log synced"));
+		assertEquals(1, standIn.getRequestCount("sync_new_collections"));
+		assertNotNull(standIn.getLastRequest("sync_new_collections").getHeader("Content-Length"));
+	}
+
+	@Test
+	@DisplayName("Ensure a full collection log is uploaded gzipped")
+	void uploadsCompressedCollectionLog() throws Exception
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		requestManager.uploadFullCollectionLog(new PlayerDataSubmission(
+			"CousinOfKos",
+			"STANDARD",
+			1234567890,
+			new PlayerData(1_500, Collections.singleton(new ObtainedCollectionItem(24670, "Twisted ancestral colour kit", 1)))
+		)).get(10, TimeUnit.SECONDS);
+
+		final RecordedRequest request = standIn.getLastRequest("sync_collection");
+
+		assertEquals(1, standIn.getRequestCount("sync_collection"));
+		assertEquals("gzip", request.getHeader("Content-Encoding"));
+		assertEquals(request.getBodySize(), injector.getInstance(HttpMetrics.class).getSnapshot().get("sync_collection").getBytesOut());
+		assertTrue(Okio.buffer(new GzipSource(request.getBody())).readUtf8().contains("\"id\":24670"));
+	}
+
+	@Test
+	@DisplayName("Ensure a full collection log is sent uncompressed when the server can't read gzipped bodies")
+	void fallsBackToUncompressedUpload() throws Exception
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		final PlayerDataSubmission submission = new PlayerDataSubmission(
+			"CousinOfKos",
+			"STANDARD",
+			1234567890,
+			new PlayerData(1_500, Collections.singleton(new ObtainedCollectionItem(24670, "Twisted ancestral colour kit", 1)))
+		);
+
+		standIn.setReadsGzip(false);
+
+		requestManager.uploadFullCollectionLog(submission).get(10, TimeUnit.SECONDS);
+
+		assertEquals(2, standIn.getRequestCount("sync_collection"));
+		assertNull(standIn.getLastRequest("sync_collection").getHeader("Content-Encoding"));
+		assertNotNull(standIn.getLastRequest("sync_collection").getHeader("Content-Length"));
+
+		// Later uploads skip the compressed attempt
+		requestManager.uploadFullCollectionLog(submission).get(10, TimeUnit.SECONDS);
+
+		assertEquals(3, standIn.getRequestCount("sync_collection"));
+	}
+
+	@Test
+	@DisplayName("Ensure an upload the server answers with an error fails")
+	void failsUploadWithErrorPayload()
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		standIn.setFixture("sync_collection", "{\"error\":{\"Code\":500,\"Message\":\"Sync failed\"}}");
+
+		final ExecutionException e = assertThrows(ExecutionException.class, () -> requestManager.uploadFullCollectionLog(new PlayerDataSubmission(
+			"CousinOfKos",
+			"STANDARD",
+			1234567890,
+			new PlayerData(1_500, Collections.emptySet())
+		)).get(10, TimeUnit.SECONDS));
+
+		assertTrue(e.getCause() instanceof IOException);
+	}
+
+	@Test
+	@DisplayName("Ensure panel lookups are combined from every endpoint they need")
+	void combinesPanelLookups() throws Exception
+	{
+		final TempleService service = injector.getInstance(TempleService.class);
+
+		final TempleClan clan = service.fetchClanAsync("1337", "week").get(10, TimeUnit.SECONDS);
+
+		assertFalse(clan.error);
+		assertEquals("Kos Clan", clan.clanOverview.data.info.name);
+		assertEquals(2, clan.clanAchievements.data.size());
+		assertEquals(3, clan.clanCurrentTopEhp.list.size());
+		assertEquals(2, standIn.getRequestCount("current_top"));
+
+		final TempleCompetition competition = service.fetchCompetitionAsync("4242").get(10, TimeUnit.SECONDS);
+
+		assertEquals(3, competition.compOverview.data.participants.size());
+	}
+
+	@Test
+	@DisplayName("Ensure a failing endpoint stops being called once its circuit opens")
+	void stopsCallingFailingEndpoint()
+	{
+		final CollectionLogRequestManager requestManager = injector.getInstance(CollectionLogRequestManager.class);
+
+		standIn.failNext(10, 503);
+
+		for (int attempt = 0; attempt < 5; attempt++)
+		{
+			final ExecutionException e = assertThrows(ExecutionException.class, () -> requestManager.getPlayerInfo("cousinofkos", RequestPriority.LOCAL_PLAYER).get(10, TimeUnit.SECONDS));
+
+			assertTrue(e.getCause() instanceof IOException);
+		}
+
+		assertEquals(3, standIn.getRequestCount("player_info"));
+	}
+
+	@Test
+	@DisplayName("Ensure calls are measured per endpoint")
+	void recordsEndpointMetrics() throws Exception
+	{
+		final TempleService service = injector.getInstance(TempleService.class);
+		final HttpMetrics metrics = injector.getInstance(HttpMetrics.class);
+
+		standIn.failNext(1, 500);
+
+		service.fetchCompetitionAsync("4242").handle((result, e) -> null).get(10, TimeUnit.SECONDS);
+		service.fetchCompetitionAsync("4242").get(10, TimeUnit.SECONDS);
+
+		final HttpMetrics.EndpointStats stats = metrics.getSnapshot().get("competition_info");
+
+		assertEquals(2, stats.getCalls());
+		assertEquals(1, (long) stats.getStatusCodes().get(500));
+		assertEquals(1, (long) stats.getStatusCodes().get(200));
+		assertTrue(stats.getBytesIn() > 0);
+	}
+}
@@ -0,0 +1,228 @@
+package com.templeosrs.api;
+
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * A local stand-in for the TempleOSRS API, replaying the recorded responses in {@code resources/.../fixtures}.
+ * <p>
+ * Every endpoint is answered by the fixture named after its last path segment (e.g. {@code group_info.json} for
+ * {@code /api/group_info.php}), and {@code current_top/week.php} by {@code current_top.json}. Latency and failures
+ * can be injected to see how the plugin copes with a slow or failing site.
+ */
+public class TempleApiStandIn implements AutoCloseable
+{
+	private final MockWebServer server = new MockWebServer();
+
+	private final Map<String, String> fixtures = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+	private final Map<String, RecordedRequest> lastRequests = new ConcurrentHashMap<>();
+
+	private final Random random = new Random(0);
+
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+
+	private volatile long latencyMillis;
+
+	private volatile double failureRate;
+
+	private volatile int failureCode = 503;
+
+	private volatile boolean readsGzip = true;
+
+	public TempleApiStandIn() throws IOException
+	{
+		server.setDispatcher(new Dispatcher()
+		{
+			@Override
+			public MockResponse dispatch(RecordedRequest request)
+			{
+				return respond(request);
+			}
+		});
+
+		server.start();
+	}
+
+	/**
+	 * @return The base URL to point {@link com.templeosrs.util.api.TempleApi} at
+	 */
+	public HttpUrl getBaseUrl()
+	{
+		return server.url("/");
+	}
+
+	/**
+	 * Delays every response by the given time before its headers are sent.
+	 */
+	public void setLatency(long latency, TimeUnit unit)
+	{
+		latencyMillis = unit.toMillis(latency);
+	}
+
+	/**
+	 * Fails the given share of requests, picked at random, with the status code.
+	 */
+	public void setFailureRate(double failureRate, int code)
+	{
+		this.failureRate = failureRate;
+		this.failureCode = code;
+	}
+
+	/**
+	 * Fails the next requests with the status code, whatever the failure rate.
+	 */
+	public void failNext(int requests, int code)
+	{
+		failureCode = code;
+		failuresLeft.set(requests);
+	}
+
+	/**
+	 * Sets whether gzipped request bodies can be read. Like a PHP endpoint that can't decode them, one that can't
+	 * still answers with a 200, but with an error payload.
+	 */
+	public void setReadsGzip(boolean readsGzip)
+	{
+		this.readsGzip = readsGzip;
+	}
+
+	/**
+	 * Replaces an endpoint's fixture, e.g. to serve a larger collection log.
+	 *
+	 * @param endpoint The endpoint's last path segment without {@code .php}
+	 */
+	public void setFixture(String endpoint, String body)
+	{
+		fixtures.put(endpoint, body);
+	}
+
+	/**
+	 * @param endpoint The endpoint's last path segment without {@code .php}
+	 * @return How many requests for the endpoint reached the server
+	 */
+	public int getRequestCount(String endpoint)
+	{
+		final AtomicInteger count = requestCounts.get(endpoint);
+
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * @param endpoint The endpoint's last path segment without {@code .php}
+	 * @return The last request for the endpoint that reached the server, or null if there was none
+	 */
+	public RecordedRequest getLastRequest(String endpoint)
+	{
+		return lastRequests.get(endpoint);
+	}
+
+	public int getTotalRequestCount()
+	{
+		return server.getRequestCount();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		server.shutdown();
+	}
+
+	private MockResponse respond(RecordedRequest request)
+	{
+		final String endpoint = endpoint(request.getRequestUrl());
+
+		requestCounts.computeIfAbsent(endpoint, key -> new AtomicInteger()).incrementAndGet();
+		lastRequests.put(endpoint, request);
+
+		final MockResponse response = new MockResponse().setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+
+		if (shouldFail())
+		{
+			return response.setResponseCode(failureCode).setBody("Service unavailable");
+		}
+
+		if (!readsGzip && "gzip".equals(request.getHeader("Content-Encoding")))
+		{
+			return response
+				.setHeader("Content-Type", "application/json")
+				.setBody("{\"error\":{\"Code\":400,\"Message\":\"Invalid request body\"}}");
+		}
+
+		final String body = fixture(endpoint);
+
+		if (body == null)
+		{
+			return response.setResponseCode(404).setBody("No fixture for " + endpoint);
+		}
+
+		return response
+			.setHeader("Content-Type", body.startsWith("{") ? "application/json" : "text/plain")
+			.setBody(body);
+	}
+
+	private boolean shouldFail()
+	{
+		if (failuresLeft.getAndUpdate(left -> Math.max(left - 1, 0)) > 0)
+		{
+			return true;
+		}
+
+		synchronized (random)
+		{
+			return random.nextDouble() < failureRate;
+		}
+	}
+
+	private String fixture(String endpoint)
+	{
+		return fixtures.computeIfAbsent(endpoint, key -> {
+			for (String extension : new String[]{".json", ".txt"})
+			{
+				final URL resource = TempleApiStandIn.class.getResource("fixtures/" + key + extension);
+
+				if (resource == null)
+				{
+					continue;
+				}
+
+				try
+				{
+					return Resources.toString(resource, StandardCharsets.UTF_8);
+				}
+				catch (IOException e)
+				{
+					throw new IllegalStateException("Could not read fixture " + key, e);
+				}
+			}
+
+			return null;
+		});
+	}
+
+	private static String endpoint(HttpUrl url)
+	{
+		final int segments = url.pathSize();
+
+		if (segments > 1 && url.pathSegments().get(segments - 2).equals("current_top"))
+		{
+			return "current_top";
+		}
+
+		return url.pathSegments().get(segments - 1).replace(".php", "");
+	}
+}
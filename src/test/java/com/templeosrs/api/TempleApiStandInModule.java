@@ -0,0 +1,48 @@
+package com.templeosrs.api;
+
+import com.google.inject.AbstractModule;
+import com.templeosrs.TempleOSRSConfig;
+import com.templeosrs.util.api.TempleApi;
+import com.templeosrs.util.api.TempleHttpClient;
+import com.templeosrs.util.collections.database.CollectionDatabase;
+import com.templeosrs.util.collections.database.CollectionStore;
+import java.io.File;
+import java.util.concurrent.ScheduledExecutorService;
+import okhttp3.OkHttpClient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wires the plugin's network and storage classes to a {@link TempleApiStandIn}, keeping the HTTP cache and the
+ * collection log database in the given directory.
+ */
+public class TempleApiStandInModule extends AbstractModule
+{
+	private final TempleApiStandIn standIn;
+
+	private final File directory;
+
+	private final ScheduledExecutorService executor;
+
+	public TempleApiStandInModule(TempleApiStandIn standIn, File directory, ScheduledExecutorService executor)
+	{
+		this.standIn = standIn;
+		this.directory = directory;
+		this.executor = executor;
+	}
+
+	@Override
+	protected void configure()
+	{
+		final TempleOSRSConfig config = mock(TempleOSRSConfig.class);
+		when(config.maxCachedPlayers()).thenReturn(50);
+		when(config.playerInfoCacheSeconds()).thenReturn(60);
+
+		bind(TempleOSRSConfig.class).toInstance(config);
+		bind(ScheduledExecutorService.class).toInstance(executor);
+		bind(OkHttpClient.class).toInstance(new OkHttpClient());
+		bind(TempleApi.class).toInstance(new TempleApi(standIn.getBaseUrl()));
+		bind(TempleHttpClient.class).toInstance(new TempleHttpClient(directory));
+		bind(CollectionStore.class).toInstance(new CollectionDatabase(directory));
+	}
+}
@@ -0,0 +1,277 @@
+package com.templeosrs.collectionlog.database;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.templeosrs.TempleOSRSConfig;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionDatabase;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CollectionDatabaseTest
+{
+	private File directory;
+
+	private ScheduledExecutorService executor;
+
+	private Injector injector;
+
+	private CollectionDatabase database;
+
+	@BeforeEach
+	void createDatabase() throws IOException
+	{
+		final TempleOSRSConfig config = mock(TempleOSRSConfig.class);
+		when(config.maxCachedPlayers()).thenReturn(50);
+
+		directory = Files.createTempDirectory("collection-database").toFile();
+		executor = Executors.newSingleThreadScheduledExecutor();
+
+		injector = Guice.createInjector(binder -> {
+			binder.bind(TempleOSRSConfig.class).toInstance(config);
+			binder.bind(ScheduledExecutorService.class).toInstance(executor);
+		});
+
+		database = new CollectionDatabase(directory);
+		injector.injectMembers(database);
+	}
+
+	@AfterEach
+	void closeDatabase()
+	{
+		database.shutDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("Ensure a restarted database is opened again before it reports being ready")
+	void reopensAfterRestart() throws Exception
+	{
+		database.startUp();
+		final CompletableFuture<Void> firstStart = database.whenReady();
+		firstStart.get(10, TimeUnit.SECONDS);
+		database.shutDown();
+
+		database.startUp();
+		final CompletableFuture<Void> secondStart = database.whenReady();
+		secondStart.get(10, TimeUnit.SECONDS);
+
+		assertNotSame(firstStart, secondStart);
+		assertTrue(database.isReady());
+
+		database.upsertItemsBatch("cousinofkos", Collections.singletonList(new ObtainedCollectionItem(1, 2)), new Timestamp(0));
+		database.flush();
+
+		assertEquals(2, database.getSnapshot("cousinofkos").getItems().get(1).getCount());
+	}
+
+	@Test
+	@DisplayName("Ensure a database that can't be opened fails its ready future and runs the failure callback of queued tasks")
+	void failsWhenDatabaseCannotBeOpened() throws Exception
+	{
+		Files.write(new File(directory, "runelite-collections.mv.db").toPath(), "not a database".getBytes(StandardCharsets.UTF_8));
+
+		database.startUp();
+
+		final ExecutionException e = assertThrows(ExecutionException.class, () -> database.whenReady().get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof SQLException);
+		assertFalse(database.isReady());
+
+		final CompletableFuture<Void> task = new CompletableFuture<>();
+		final CompletableFuture<Void> failure = new CompletableFuture<>();
+		database.executeWhenReady(executor, () -> task.complete(null), () -> failure.complete(null));
+
+		failure.get(10, TimeUnit.SECONDS);
+		assertFalse(task.isDone());
+		assertThrows(SQLException.class, database::getConnection);
+	}
+
+	@Test
+	@DisplayName("Ensure eviction keeps the local player and the most recently accessed players")
+	void evictsLeastRecentlyAccessed() throws Exception
+	{
+		database.startUp();
+		database.whenReady().get(10, TimeUnit.SECONDS);
+
+		final String[] players = {"cousinofkos", "zezima", "mikael", "lynx titan", "woox"};
+
+		for (String player : players)
+		{
+			database.upsertItemsBatch(player, Collections.singletonList(new ObtainedCollectionItem(1, 1)), new Timestamp(0));
+		}
+
+		database.flush();
+
+		// Accessed in order, so the local player is the least recently accessed of all
+		for (String player : players)
+		{
+			database.updateLastAccessed(player);
+			Thread.sleep(5);
+		}
+
+		assertEquals(2, database.evictLeastRecentlyAccessed("CousinOfKos", 2));
+
+		assertTrue(database.hasPlayerData("cousinofkos"));
+		assertFalse(database.hasPlayerData("zezima"));
+		assertFalse(database.hasPlayerData("mikael"));
+		assertTrue(database.hasPlayerData("lynx titan"));
+		assertTrue(database.hasPlayerData("woox"));
+	}
+
+	@Test
+	@DisplayName("Ensure access times are written together, and an access made while they are written is kept")
+	void flushesAccessTimes() throws Exception
+	{
+		final AtomicInteger connections = new AtomicInteger();
+		final AtomicReference<Runnable> onConnection = new AtomicReference<>();
+
+		database = new CollectionDatabase(directory)
+		{
+			@Override
+			public Connection getConnection() throws SQLException
+			{
+				connections.incrementAndGet();
+
+				final Runnable hook = onConnection.getAndSet(null);
+
+				if (hook != null)
+				{
+					hook.run();
+				}
+
+				return super.getConnection();
+			}
+		};
+		injector.injectMembers(database);
+
+		database.startUp();
+		database.whenReady().get(10, TimeUnit.SECONDS);
+
+		final String[] players = {"cousinofkos", "zezima", "mikael"};
+
+		for (String player : players)
+		{
+			database.upsertItemsBatch(player, Collections.singletonList(new ObtainedCollectionItem(1, 1)), new Timestamp(0));
+		}
+
+		database.flush();
+		Thread.sleep(5);
+
+		final long accessedAfter = System.currentTimeMillis();
+
+		for (String player : players)
+		{
+			database.updateLastAccessed(player);
+		}
+
+		// Runs once the pending times have been copied, as if the player was read again while they are written
+		onConnection.set(() -> {
+			try
+			{
+				Thread.sleep(5);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			database.updateLastAccessed("zezima");
+		});
+
+		connections.set(0);
+		database.flush();
+
+		// One connection for every access time, and one for the checkpoint
+		assertEquals(2, connections.get());
+
+		final Map<String, Timestamp> accessTimes = readAccessTimes();
+
+		for (String player : players)
+		{
+			assertTrue(accessTimes.get(player).getTime() >= accessedAfter);
+		}
+
+		database.flush();
+
+		assertTrue(readAccessTimes().get("zezima").after(accessTimes.get("zezima")));
+	}
+
+	@Test
+	@DisplayName("Ensure the diff holds only new items and count increases over the saved log")
+	void diffsAgainstSavedLog() throws Exception
+	{
+		database.startUp();
+		database.whenReady().get(10, TimeUnit.SECONDS);
+
+		database.upsertItemsBatch("cousinofkos", Arrays.asList(
+			new ObtainedCollectionItem(1, 2),
+			new ObtainedCollectionItem(2, 1),
+			new ObtainedCollectionItem(3, 5)
+		), new Timestamp(0));
+
+		final Multiset<Integer> collectionLog = HashMultiset.create();
+		collectionLog.add(1, 3);
+		collectionLog.add(2, 1);
+		collectionLog.add(4, 1);
+
+		// Item 3 isn't shown in the log being compared, so it can't contribute to the difference
+		final Multiset<Integer> diff = database.getCollectionLogDiff("cousinofkos", collectionLog);
+
+		assertEquals(2, diff.size());
+		assertEquals(1, diff.count(1));
+		assertEquals(0, diff.count(2));
+		assertEquals(0, diff.count(3));
+		assertEquals(1, diff.count(4));
+
+		// Nothing has been saved for this player, so everything in the log is new
+		assertEquals(collectionLog, HashMultiset.create(database.getCollectionLogDiff("zezima", collectionLog)));
+	}
+
+	private Map<String, Timestamp> readAccessTimes() throws SQLException
+	{
+		final Map<String, Timestamp> accessTimes = new HashMap<>();
+
+		try (Connection conn = database.getConnection();
+			 Statement stmt = conn.createStatement();
+			 ResultSet rs = stmt.executeQuery("SELECT player_name, last_accessed FROM collection_log_player"))
+		{
+			while (rs.next())
+			{
+				accessTimes.put(rs.getString("player_name"), rs.getTimestamp("last_accessed"));
+			}
+		}
+
+		return accessTimes;
+	}
+}
@@ -0,0 +1,77 @@
+package com.templeosrs.collectionlog.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionLogSnapshot;
+import com.templeosrs.util.collections.database.CollectionLogSnapshotCache;
+import java.sql.Timestamp;
+import java.util.Collections;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CollectionLogSnapshotCacheTest
+{
+	private final CollectionLogSnapshotCache cache = new CollectionLogSnapshotCache(() -> 2);
+
+	private static CollectionLogSnapshot snapshot(int itemId)
+	{
+		return new CollectionLogSnapshot(new Timestamp(0), Collections.singletonMap(itemId, new ObtainedCollectionItem(itemId, 1)));
+	}
+
+	@Test
+	@DisplayName("Ensure invalidating a player drops only their snapshot")
+	void invalidatesPlayer()
+	{
+		final CollectionLogSnapshot kept = snapshot(2);
+
+		cache.put("cousinofkos", snapshot(1), cache.getVersion());
+		cache.put("mikael", kept, cache.getVersion());
+
+		cache.invalidate("cousinofkos");
+
+		assertNull(cache.get("cousinofkos"));
+		assertSame(kept, cache.get("mikael"));
+
+		cache.invalidateAll();
+
+		assertNull(cache.get("mikael"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	@DisplayName("Ensure a snapshot loaded before an invalidation is not cached")
+	void ignoresStaleLoad()
+	{
+		// The loader reads the version, then a write for the same player lands before its query returns
+		final long loadedAtVersion = cache.getVersion();
+
+		cache.invalidate("cousinofkos");
+		cache.put("cousinofkos", snapshot(1), loadedAtVersion);
+
+		assertNull(cache.get("cousinofkos"));
+
+		// A load that starts after the write is cached as usual
+		cache.put("cousinofkos", snapshot(1), cache.getVersion());
+
+		assertNotNull(cache.get("cousinofkos"));
+	}
+
+	@Test
+	@DisplayName("Ensure the least recently read snapshot is evicted once the cache is full")
+	void evictsLeastRecentlyUsed()
+	{
+		cache.put("cousinofkos", snapshot(1), cache.getVersion());
+		cache.put("mikael", snapshot(2), cache.getVersion());
+
+		// Reading the first player makes the second the least recently used
+		cache.get("cousinofkos");
+		cache.put("zezima", snapshot(3), cache.getVersion());
+
+		assertNotNull(cache.get("cousinofkos"));
+		assertNull(cache.get("mikael"));
+		assertNotNull(cache.get("zezima"));
+	}
+}
@@ -0,0 +1,199 @@
+package com.templeosrs.collectionlog.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionLogWriteQueue;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CollectionLogWriteQueueTest
+{
+	/**
+	 * Every group handed to the writer, in the order it was written
+	 */
+	private final List<List<CollectionLogWriteQueue.PendingWrite>> batches = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Counted down by the writer once it has been handed its first group
+	 */
+	private final CountDownLatch writing = new CountDownLatch(1);
+
+	/**
+	 * Holds the writer until the test releases it
+	 */
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final CollectionLogWriteQueue writeQueue = new CollectionLogWriteQueue(this::write);
+
+	private void write(Collection<CollectionLogWriteQueue.PendingWrite> writes)
+	{
+		batches.add(new ArrayList<>(writes));
+		writing.countDown();
+
+		try
+		{
+			release.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<ObtainedCollectionItem> items(ObtainedCollectionItem... items)
+	{
+		return Arrays.asList(items);
+	}
+
+	@AfterEach
+	void stopWriteQueue()
+	{
+		release.countDown();
+		writeQueue.stop();
+	}
+
+	@Test
+	@DisplayName("Ensure writes for the same player are merged while they wait")
+	void coalescesWritesPerPlayer() throws Exception
+	{
+		writeQueue.start();
+
+		// Holds the writer on the first group, so everything after it has to wait in the queue
+		writeQueue.submit("zezima", items(new ObtainedCollectionItem(1, 1)), null);
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		writeQueue.submit("cousinofkos", items(new ObtainedCollectionItem(1, 1), new ObtainedCollectionItem(2, 1)), new Timestamp(1_000));
+		writeQueue.submit("cousinofkos", items(new ObtainedCollectionItem(2, 3)), new Timestamp(2_000));
+		writeQueue.submit("mikael", items(new ObtainedCollectionItem(3, 1)), null);
+
+		release.countDown();
+		writeQueue.flush();
+
+		assertEquals(2, batches.size());
+
+		final List<CollectionLogWriteQueue.PendingWrite> batch = batches.get(1);
+
+		assertEquals(2, batch.size());
+		assertEquals("cousinofkos", batch.get(0).getPlayerName());
+		assertEquals(2, batch.get(0).getItems().size());
+		assertEquals(3, batch.get(0).getItems().get(2).getCount());
+		assertEquals(new Timestamp(2_000), batch.get(0).getLastChanged());
+		assertEquals("mikael", batch.get(1).getPlayerName());
+	}
+
+	@Test
+	@DisplayName("Ensure submitting never waits for the writer")
+	void submitsWithoutWaiting() throws Exception
+	{
+		writeQueue.start();
+
+		writeQueue.submit("zezima", items(new ObtainedCollectionItem(1, 1)), null);
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		// The writer is held, so a submitter that waited for room would never finish
+		CompletableFuture.runAsync(() -> {
+			for (int player = 0; player < 100; player++)
+			{
+				writeQueue.submit("player " + player, items(new ObtainedCollectionItem(1, 1)), null);
+			}
+		}).get(10, TimeUnit.SECONDS);
+
+		release.countDown();
+		writeQueue.flush();
+
+		assertEquals(100, batches.get(1).size());
+	}
+
+	@Test
+	@DisplayName("Ensure a write stays visible while it is being written")
+	void overlaysInFlightWrite() throws Exception
+	{
+		writeQueue.start();
+
+		writeQueue.submit("cousinofkos", items(new ObtainedCollectionItem(1, 1)), new Timestamp(1_000));
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		// The first write is in flight and the second is queued behind it; reads see both
+		writeQueue.submit("cousinofkos", items(new ObtainedCollectionItem(2, 1)), null);
+
+		final CollectionLogWriteQueue.PendingWrite pending = writeQueue.getPending("cousinofkos");
+
+		assertNotNull(pending);
+		assertEquals(2, pending.getItems().size());
+		assertEquals(new Timestamp(1_000), pending.getLastChanged());
+
+		release.countDown();
+		writeQueue.flush();
+
+		assertNull(writeQueue.getPending("cousinofkos"));
+	}
+
+	@Test
+	@DisplayName("Ensure flush waits until every submitted write has been written")
+	void flushWaitsForWrites() throws Exception
+	{
+		writeQueue.start();
+
+		writeQueue.submit("cousinofkos", items(new ObtainedCollectionItem(1, 1)), null);
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		final CompletableFuture<Void> flushed = CompletableFuture.runAsync(writeQueue::flush);
+
+		// The writer is still held, so the flush can't have returned
+		assertFalse(flushed.isDone());
+
+		release.countDown();
+		flushed.get(10, TimeUnit.SECONDS);
+
+		assertNull(writeQueue.getPending("cousinofkos"));
+	}
+
+	@Test
+	@DisplayName("Ensure stopping writes everything that is still queued")
+	void stopDrainsQueue() throws Exception
+	{
+		writeQueue.start();
+
+		writeQueue.submit("zezima", items(new ObtainedCollectionItem(1, 1)), null);
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		writeQueue.submit("cousinofkos", items(new ObtainedCollectionItem(1, 1)), null);
+		writeQueue.submit("mikael", items(new ObtainedCollectionItem(1, 1)), null);
+
+		release.countDown();
+		writeQueue.stop();
+
+		final List<String> written = new ArrayList<>();
+		batches.forEach(batch -> batch.forEach(write -> written.add(write.getPlayerName())));
+
+		assertEquals(Arrays.asList("zezima", "cousinofkos", "mikael"), written);
+		assertNull(writeQueue.getPending("mikael"));
+	}
+
+	@Test
+	@DisplayName("Ensure writes are made on the calling thread before the queue has started")
+	void writesDirectlyWhenNotStarted()
+	{
+		release.countDown();
+
+		writeQueue.submit("cousinofkos", Collections.singletonList(new ObtainedCollectionItem(1, 1)), null);
+
+		assertEquals(1, batches.size());
+		assertNull(writeQueue.getPending("cousinofkos"));
+	}
+}
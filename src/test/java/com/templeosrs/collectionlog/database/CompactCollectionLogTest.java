@@ -0,0 +1,74 @@
+package com.templeosrs.collectionlog.database;
+
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.CollectionLogItemOrder;
+import com.templeosrs.util.collections.database.CompactCollectionLog;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactCollectionLogTest
+{
+	private static final CollectionLogItemOrder ORDER = CollectionLogItemOrder.of(Arrays.asList(
+		11_000, 11_001, 11_002, 11_003, 11_004, 11_005, 11_006, 11_007, 11_008, 11_009
+	));
+
+	private static final List<ObtainedCollectionItem> ITEMS = Arrays.asList(
+		new ObtainedCollectionItem(11_001, 1),
+		new ObtainedCollectionItem(11_008, 300),
+		new ObtainedCollectionItem(11_009, 70_000),
+		// Not part of the order, e.g. added to the game after the order was read
+		new ObtainedCollectionItem(25_000, 4)
+	);
+
+	@Test
+	@DisplayName("Ensure single items are read back from the packed log, including items missing from the order")
+	void readsSingleItems()
+	{
+		final CompactCollectionLog log = new CompactCollectionLog(CompactCollectionLog.encode(ITEMS, ORDER), ORDER);
+
+		assertEquals(4, log.size());
+		assertEquals(1, log.get(11_001).getCount());
+		assertEquals(300, log.get(11_008).getCount());
+		assertEquals(70_000, log.get(11_009).getCount());
+		assertEquals(4, log.get(25_000).getCount());
+		assertNull(log.get(11_000));
+		assertNull(log.get(99_999));
+	}
+
+	@Test
+	@DisplayName("Ensure a full decode matches the items that were packed")
+	void decodesAllItems()
+	{
+		final CompactCollectionLog log = new CompactCollectionLog(CompactCollectionLog.encode(ITEMS, ORDER), ORDER);
+
+		assertEquals(4, log.entrySet().size());
+
+		for (ObtainedCollectionItem item : ITEMS)
+		{
+			assertEquals(item.getCount(), log.get(item.getId()).getCount());
+		}
+	}
+
+	@Test
+	@DisplayName("Ensure an empty log packs into a handful of bytes")
+	void packsEmptyLog()
+	{
+		final byte[] packed = CompactCollectionLog.encode(Arrays.asList(), ORDER);
+
+		assertTrue(packed.length <= 3);
+		assertTrue(new CompactCollectionLog(packed, ORDER).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Ensure data packed with an unknown layout is rejected")
+	void rejectsUnknownFormat()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new CompactCollectionLog(new byte[]{99}, ORDER));
+	}
+}
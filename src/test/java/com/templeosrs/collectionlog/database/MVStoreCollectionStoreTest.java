@@ -0,0 +1,84 @@
+package com.templeosrs.collectionlog.database;
+
+import com.google.inject.Guice;
+import com.templeosrs.util.collections.data.ObtainedCollectionItem;
+import com.templeosrs.util.collections.database.MVStoreCollectionStore;
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MVStoreCollectionStoreTest
+{
+	private ScheduledExecutorService executor;
+
+	private MVStoreCollectionStore store;
+
+	@BeforeEach
+	void createStore() throws Exception
+	{
+		final File directory = Files.createTempDirectory("collection-store").toFile();
+		executor = Executors.newSingleThreadScheduledExecutor();
+
+		store = new MVStoreCollectionStore(directory);
+		Guice.createInjector(binder -> binder.bind(ScheduledExecutorService.class).toInstance(executor)).injectMembers(store);
+
+		store.startUp();
+		store.whenReady().get(10, TimeUnit.SECONDS);
+	}
+
+	@AfterEach
+	void closeStore()
+	{
+		store.shutDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("Ensure a shut down store fails reads and writes instead of reopening")
+	void failsFastOnceClosed() throws Exception
+	{
+		store.upsertItemsBatch("cousinofkos", Collections.singletonList(new ObtainedCollectionItem(1, 2)), new Timestamp(0));
+		store.shutDown();
+
+		store.upsertItemsBatch("zezima", Collections.singletonList(new ObtainedCollectionItem(1, 1)), new Timestamp(0));
+
+		assertNull(store.getSnapshot("cousinofkos"));
+		assertFalse(store.hasPlayerData("cousinofkos"));
+
+		// Starting up again opens the same file, without the write made while it was closed
+		store.startUp();
+		store.whenReady().get(10, TimeUnit.SECONDS);
+
+		assertEquals(2, store.getSnapshot("cousinofkos").getItems().get(1).getCount());
+		assertFalse(store.hasPlayerData("zezima"));
+	}
+
+	@Test
+	@DisplayName("Ensure clearing the store drops every player")
+	void clearsAllPlayers()
+	{
+		store.upsertItemsBatch("cousinofkos", Collections.singletonList(new ObtainedCollectionItem(1, 2)), new Timestamp(0));
+		store.upsertItemsBatch("zezima", Collections.singletonList(new ObtainedCollectionItem(1, 1)), new Timestamp(0));
+
+		store.clearAll();
+
+		assertFalse(store.hasPlayerData("cousinofkos"));
+		assertFalse(store.hasPlayerData("zezima"));
+
+		store.upsertItemsBatch("zezima", Collections.singletonList(new ObtainedCollectionItem(1, 1)), new Timestamp(0));
+
+		assertTrue(store.hasPlayerData("zezima"));
+	}
+}
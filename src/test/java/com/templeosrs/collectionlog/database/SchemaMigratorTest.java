@@ -0,0 +1,187 @@
+package com.templeosrs.collectionlog.database;
+
+import com.templeosrs.util.collections.database.CollectionDatabaseMigrations;
+import com.templeosrs.util.collections.database.CollectionLogItemOrder;
+import com.templeosrs.util.collections.database.CompactCollectionLog;
+import com.templeosrs.util.collections.database.SchemaMigration;
+import com.templeosrs.util.collections.database.SchemaMigrator;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SchemaMigratorTest
+{
+	private Connection conn;
+
+	@BeforeEach
+	void openDatabase() throws SQLException
+	{
+		conn = DriverManager.getConnection("jdbc:h2:mem:");
+	}
+
+	@AfterEach
+	void closeDatabase() throws SQLException
+	{
+		conn.close();
+	}
+
+	@Test
+	@DisplayName("Ensure every migration is applied to a new database")
+	void appliesAllMigrationsToNewDatabase() throws SQLException
+	{
+		final int latestVersion = CollectionDatabaseMigrations.MIGRATIONS
+			.get(CollectionDatabaseMigrations.MIGRATIONS.size() - 1)
+			.getVersion();
+
+		assertEquals(latestVersion, SchemaMigrator.migrate(conn, CollectionDatabaseMigrations.MIGRATIONS));
+		assertEquals(latestVersion, SchemaMigrator.getSchemaVersion(conn));
+	}
+
+	@Test
+	@DisplayName("Ensure migrations that have already been applied are not run again")
+	void skipsAppliedMigrations() throws SQLException
+	{
+		final SchemaMigration failingMigration = new SchemaMigration(1, "Fails if re-run", c -> {
+			throw new SQLException("Migration was re-run");
+		});
+
+		SchemaMigrator.migrate(conn, Collections.singletonList(SchemaMigration.of(1, "Create table", "CREATE TABLE a(id INT)")));
+
+		assertEquals(1, SchemaMigrator.migrate(conn, Collections.singletonList(failingMigration)));
+	}
+
+	@Test
+	@DisplayName("Ensure migrations are applied in version order and a failure stops at the last good version")
+	void stopsAtFailingMigration() throws SQLException
+	{
+		assertThrows(SQLException.class, () -> SchemaMigrator.migrate(conn, Arrays.asList(
+			SchemaMigration.of(3, "Broken", "NOT VALID SQL"),
+			SchemaMigration.of(2, "Add column", "ALTER TABLE a ADD COLUMN b INT"),
+			SchemaMigration.of(1, "Create table", "CREATE TABLE a(id INT)")
+		)));
+
+		assertEquals(2, SchemaMigrator.getSchemaVersion(conn));
+	}
+
+	@Test
+	@DisplayName("Ensure logs saved before versioning existed are deduplicated and carried over to the packed player log")
+	void migratesUnversionedDatabase() throws SQLException
+	{
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.execute("CREATE TABLE collection_log_cache(id IDENTITY PRIMARY KEY, item_id INT, item_name VARCHAR(255), item_count INT, player_name VARCHAR(255))");
+			stmt.execute("INSERT INTO collection_log_cache (item_id, item_name, item_count, player_name) VALUES (1, 'Pet', 1, 'cousinofkos')");
+			stmt.execute("INSERT INTO collection_log_cache (item_id, item_name, item_count, player_name) VALUES (1, 'Pet', 2, 'cousinofkos')");
+		}
+
+		SchemaMigrator.migrate(conn, CollectionDatabaseMigrations.MIGRATIONS);
+
+		try (
+			Statement stmt = conn.createStatement();
+			ResultSet rs = stmt.executeQuery("SELECT player_name, item_order_id, collection_log FROM collection_log_player")
+		)
+		{
+			assertTrue(rs.next());
+			assertEquals("cousinofkos", rs.getString(1));
+			assertNull(rs.getObject(2));
+
+			final CompactCollectionLog items = new CompactCollectionLog(rs.getBytes(3), CollectionLogItemOrder.EMPTY);
+
+			assertEquals(1, items.size());
+			assertEquals(2, items.get(1).getCount());
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	@DisplayName("Ensure a legacy cache of many full logs with duplicate rows migrates in reasonable time")
+	void migratesLargeUnversionedDatabase() throws SQLException
+	{
+		final int players = 50;
+		final int itemsPerPlayer = 1500;
+
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.execute("CREATE TABLE collection_log_cache(id IDENTITY PRIMARY KEY, item_id INT, item_name VARCHAR(255), item_count INT, player_name VARCHAR(255))");
+			stmt.execute("CREATE TABLE player_metadata(id IDENTITY PRIMARY KEY, player_name VARCHAR(255), last_changed TIMESTAMP, last_accessed TIMESTAMP)");
+		}
+
+		try (PreparedStatement ps = conn.prepareStatement("INSERT INTO collection_log_cache (item_id, item_name, item_count, player_name) VALUES (?, ?, ?, ?)"))
+		{
+			for (int player = 0; player < players; player++)
+			{
+				for (int item = 0; item < itemsPerPlayer; item++)
+				{
+					ps.setInt(1, item + 1);
+					ps.setString(2, "Item " + item);
+					ps.setInt(3, 1);
+					ps.setString(4, "player" + player);
+					ps.addBatch();
+
+					// Every tenth item was saved twice by overlapping MERGEs; the later row has the newer count
+					if (item % 10 == 0)
+					{
+						ps.setInt(3, 2);
+						ps.addBatch();
+					}
+				}
+
+				ps.executeBatch();
+			}
+		}
+
+		try (PreparedStatement ps = conn.prepareStatement("INSERT INTO player_metadata (player_name, last_changed, last_accessed) VALUES (?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)"))
+		{
+			for (int player = 0; player < players; player++)
+			{
+				ps.setString(1, "player" + player);
+				ps.addBatch();
+				ps.addBatch();
+			}
+
+			ps.executeBatch();
+		}
+
+		SchemaMigrator.migrate(conn, CollectionDatabaseMigrations.MIGRATIONS);
+
+		try (
+			Statement stmt = conn.createStatement();
+			ResultSet rs = stmt.executeQuery("SELECT player_name, last_changed, collection_log FROM collection_log_player ORDER BY player_name")
+		)
+		{
+			int migratedPlayers = 0;
+
+			while (rs.next())
+			{
+				migratedPlayers++;
+
+				final CompactCollectionLog items = new CompactCollectionLog(rs.getBytes(3), CollectionLogItemOrder.EMPTY);
+
+				assertTrue(rs.getString(1).startsWith("player"));
+				assertNotNull(rs.getTimestamp(2));
+				assertEquals(itemsPerPlayer, items.size());
+				assertEquals(2, items.get(1).getCount());
+				assertEquals(1, items.get(2).getCount());
+			}
+
+			assertEquals(players, migratedPlayers);
+		}
+	}
+}